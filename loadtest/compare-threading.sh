@@ -0,0 +1,48 @@
+#!/usr/bin/env bash
+# Runs loadtest/redirect.js against the app with platform threads (default) and with virtual threads,
+# and prints throughput, latency and JVM thread counts for each mode.
+#
+# Needs Postgres, Redis and Kafka from application.yml, plus k6 and curl on the PATH.
+#   ./loadtest/compare-threading.sh            # VUS=500 DURATION=60s LINKS=200 by default
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+BASE_URL=${BASE_URL:-http://localhost:8080}
+VUS=${VUS:-500}
+DURATION=${DURATION:-60s}
+LINKS=${LINKS:-200}
+
+./mvnw -q -DskipTests package
+JAR=$(ls target/url-shortener-*.jar | grep -v plain | head -n 1)
+
+metric() {
+  curl -s "$BASE_URL/actuator/metrics/$1" | sed -E 's/.*"value":([0-9.E]+).*/\1/'
+}
+
+run_mode() {
+  local mode=$1 virtual=$2
+  echo "=== $mode threads ==="
+  VIRTUAL_THREADS=$virtual java -jar "$JAR" > "target/loadtest-$mode.log" 2>&1 &
+  local pid=$!
+  trap 'kill $pid 2>/dev/null || true' RETURN
+
+  until curl -sf "$BASE_URL/actuator/health" > /dev/null; do sleep 1; done
+
+  k6 run --quiet -e BASE_URL="$BASE_URL" -e VUS="$VUS" -e DURATION="$DURATION" -e LINKS="$LINKS" \
+    --summary-export "target/loadtest-$mode.json" loadtest/redirect.js
+
+  echo "jvm.threads.live:   $(metric jvm.threads.live)"
+  echo "jvm.threads.peak:   $(metric jvm.threads.peak)"
+  if [ "$virtual" = "true" ]; then
+    echo "jvm.threads.virtual.pinned (count): $(curl -s "$BASE_URL/actuator/metrics/jvm.threads.virtual.pinned" \
+      | sed -E 's/.*"statistic":"COUNT","value":([0-9.E]+).*/\1/')"
+  fi
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+}
+
+run_mode platform false
+run_mode virtual true
+
+echo "k6 summaries: target/loadtest-platform.json, target/loadtest-virtual.json"
@@ -0,0 +1,59 @@
+#!/usr/bin/env bash
+# Lookup latency of the old IgnoreCase predicates (upper(col) = upper(?), which no index serves)
+# against the canonical key columns (equality on a B-tree index), on a synthetic short_code-shaped table.
+#
+# Needs psql and pgbench on the PATH and a scratch database from the usual PG* variables; the
+# lookup_bench table is dropped and recreated.
+#   PGDATABASE=bench ./loadtest/lookup-keys.sh                    # ROWS=10000000 CLIENTS=8 DURATION=30
+#   PGDATABASE=bench ROWS=100000000 ./loadtest/lookup-keys.sh
+set -euo pipefail
+
+ROWS=${ROWS:-10000000}
+CLIENTS=${CLIENTS:-8}
+DURATION=${DURATION:-30}
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+echo "=== loading $ROWS rows ==="
+# Every 10th row has an alias; short_code and alias_key get the unique indexes the app creates
+psql -v ON_ERROR_STOP=1 -q <<SQL
+DROP TABLE IF EXISTS lookup_bench;
+CREATE UNLOGGED TABLE lookup_bench (
+    id                bigint PRIMARY KEY,
+    short_code        varchar(255) NOT NULL,
+    alias             varchar(255),
+    alias_key         varchar(255),
+    original_url      varchar(255) NOT NULL,
+    original_url_hash varchar(32)
+);
+INSERT INTO lookup_bench
+SELECT i,
+       'Sc' || to_hex(i * 7919),
+       CASE WHEN i % 10 = 0 THEN 'alias-' || i END,
+       CASE WHEN i % 10 = 0 THEN 'alias-' || i END,
+       'https://example.com/page/' || i,
+       md5('https://example.com/page/' || i)
+  FROM generate_series(1, $ROWS) AS i;
+CREATE UNIQUE INDEX ON lookup_bench (short_code);
+CREATE UNIQUE INDEX ON lookup_bench (alias_key);
+CREATE INDEX ON lookup_bench (original_url_hash);
+VACUUM ANALYZE lookup_bench;
+SQL
+
+run() {
+  local name=$1 query=$2
+  printf '%s\n' '\set id random(1, :rows)' '\set alias random(1, :rows / 10) * 10' "$query;" > "$WORK/$name.sql"
+  local result
+  result=$(pgbench -n -f "$WORK/$name.sql" -D rows="$ROWS" -c "$CLIENTS" -j "$CLIENTS" -T "$DURATION" 2>/dev/null)
+  printf '%-20s %-32s %s\n' "$name" \
+    "$(grep -E '^latency average' <<< "$result" | sed -E 's/latency average = //')" \
+    "$(grep -E '^tps' <<< "$result" | sed -E 's/ \(.*//')"
+}
+
+echo "=== lookups ($CLIENTS clients, ${DURATION}s each) ==="
+run code-ignorecase  "SELECT id FROM lookup_bench WHERE upper(short_code) = upper('Sc' || to_hex(:id * 7919))"
+run code-exact       "SELECT id FROM lookup_bench WHERE short_code = 'Sc' || to_hex(:id * 7919)"
+run alias-ignorecase "SELECT id FROM lookup_bench WHERE upper(alias) = upper('ALIAS-' || :alias)"
+run alias-key        "SELECT id FROM lookup_bench WHERE alias_key = lower('ALIAS-' || :alias)"
+run url-ignorecase   "SELECT id FROM lookup_bench WHERE upper(original_url) = upper('https://example.com/page/' || :id) LIMIT 1"
+run url-hash         "SELECT id FROM lookup_bench WHERE original_url_hash = md5('https://example.com/page/' || :id) AND original_url = 'https://example.com/page/' || :id LIMIT 1"
@@ -0,0 +1,45 @@
+// k6 load test for the redirect path (GET /urls/{code}).
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e LINKS=200 -e VUS=500 -e DURATION=60s loadtest/redirect.js
+//
+// setup() creates LINKS short URLs; each VU then resolves random codes without following the
+// redirect, so the numbers measure this service and not the target sites.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const LINKS = parseInt(__ENV.LINKS || '200');
+
+export const options = {
+    scenarios: {
+        redirects: {
+            executor: 'constant-vus',
+            vus: parseInt(__ENV.VUS || '500'),
+            duration: __ENV.DURATION || '60s',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function setup() {
+    const codes = [];
+    for (let i = 0; i < LINKS; i++) {
+        const res = http.post(`${BASE_URL}/urls/shorten`,
+            JSON.stringify({ longUrl: `https://example.com/load-test/${Date.now()}/${i}` }),
+            { headers: { 'Content-Type': 'application/json' } });
+        check(res, { 'shortened': (r) => r.status === 200 });
+        if (res.status === 200) {
+            codes.push(res.json('shortUrl').split('/').pop());
+        }
+    }
+    return { codes };
+}
+
+export default function (data) {
+    const code = data.codes[Math.floor(Math.random() * data.codes.length)];
+    const res = http.get(`${BASE_URL}/urls/${code}`, {
+        redirects: 0,
+        headers: { 'User-Agent': `k6-${__VU}` },
+    });
+    check(res, { 'redirected': (r) => r.status === 302 });
+}
@@ -0,0 +1,22 @@
+package com.shvmpk.url_shortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "analytics.consumer")
+public class AnalyticsConsumerProperties {
+    // Listener threads; each owns a disjoint set of partitions (extra threads beyond the partition count idle)
+    private int concurrency = 3;
+
+    // Daily rows kept per partition in AnalyticsStateStore
+    private int stateRowsPerPartition = 50_000;
+
+    // Canonical short code -> ShortCode id, so batches only query codes not seen recently
+    private long shortCodeCacheSize = 100_000;
+    private Duration shortCodeCacheTtl = Duration.ofMinutes(10);
+}
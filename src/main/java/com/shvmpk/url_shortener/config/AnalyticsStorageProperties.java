@@ -0,0 +1,23 @@
+package com.shvmpk.url_shortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "analytics.storage")
+public class AnalyticsStorageProperties {
+    public enum Mode { JSON, TABLE }
+
+    // JSON: per-dimension counts in the Analytics JSON columns (read-modify-write)
+    // TABLE: one analytics_dimension row per (day row, dimension, value), incremented in SQL
+    // Switching from TABLE back to JSON does not move counts back into the columns
+    private Mode mode = Mode.TABLE;
+
+    // TABLE mode: move counts still held in the JSON columns into analytics_dimension at startup
+    private boolean migrateJson = true;
+
+    // Analytics ids per migration transaction
+    private int migrationChunkSize = 1_000;
+}
@@ -0,0 +1,16 @@
+package com.shvmpk.url_shortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "analytics.topic")
+public class AnalyticsTopicProperties {
+    private String name = "analytics-events";
+
+    // Upper bound for useful consumer concurrency; raising it re-maps short codes to partitions
+    private int partitions = 12;
+    private int replicas = 1;
+}
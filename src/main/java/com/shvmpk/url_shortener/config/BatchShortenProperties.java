@@ -0,0 +1,16 @@
+package com.shvmpk.url_shortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "urls.batch")
+public class BatchShortenProperties {
+    // Items deduplicated, looked up, inserted and cached together; also the unit of result flushing
+    private int chunkSize = 1000;
+
+    // Upper bound on items per request; the rest of the body is rejected with one error line
+    private int maxItems = 100000;
+}
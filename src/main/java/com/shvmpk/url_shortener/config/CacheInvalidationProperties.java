@@ -0,0 +1,19 @@
+package com.shvmpk.url_shortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "cache.invalidation")
+public class CacheInvalidationProperties {
+    private boolean enabled = true;
+    private String channel = "cache-invalidation";
+
+    // Pending codes are coalesced and published once per interval
+    private Duration flushInterval = Duration.ofMillis(50);
+    private int maxBatchSize = 500;
+}
@@ -0,0 +1,33 @@
+package com.shvmpk.url_shortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "existence-filter")
+public class ExistenceFilterProperties {
+    // Keys (short codes + aliases) the first layer holds at the target rate; later layers grow by growthFactor
+    private long initialCapacity = 1_000_000;
+    private double fpp = 0.001;
+    private int growthFactor = 2;
+    // Each new layer's rate is the previous one's times this, bounding the compound rate at fpp / (1 - ratio)
+    private double tighteningRatio = 0.5;
+
+    // Snapshot file, written periodically and on shutdown; empty disables checkpoints
+    private String checkpointPath = "data/existence-filter.bin";
+    private Duration checkpointInterval = Duration.ofMinutes(10);
+
+    // Keys created on other nodes arrive over pub/sub; the periodic sync re-reads recently updated rows
+    // in case a message was missed
+    private String channel = "existence-filter";
+    private Duration syncInterval = Duration.ofMinutes(1);
+    // Overlap on every catch-up query, covering commit delay and clock skew between nodes
+    private Duration catchUpMargin = Duration.ofMinutes(2);
+
+    // Rows per round trip when streaming keys from short_code
+    private int fetchSize = 10_000;
+}
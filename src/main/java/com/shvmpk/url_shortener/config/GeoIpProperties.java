@@ -0,0 +1,25 @@
+package com.shvmpk.url_shortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "analytics.geoip")
+public class GeoIpProperties {
+    // GeoLite2/GeoIP2 City database; replace it with an atomic move to hot-reload
+    private String database = "src/main/resources/GeoLite2-City.mmdb";
+
+    // How often the file is checked for a newer version
+    private Duration reloadCheckInterval = Duration.ofMinutes(1);
+
+    // Lookup results are cached per network prefix; 32 / 128 caches per address
+    private int ipv4PrefixLength = 32;
+    private int ipv6PrefixLength = 128;
+
+    private long cacheMaximumSize = 100_000;
+    private Duration cacheTtl = Duration.ofHours(6);
+}
@@ -0,0 +1,30 @@
+package com.shvmpk.url_shortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "analytics.heavy-hitters")
+public class HeavyHitterProperties {
+    // Longest window a top-K query can ask for, kept as `slices` rotating summaries
+    private Duration window = Duration.ofHours(1);
+    private int slices = 12;
+
+    // Global top links: Space-Saving counters and Count-Min Sketch size per slice
+    private int linkCapacity = 1_000;
+    private int sketchWidth = 2_048;
+    private int sketchDepth = 4;
+
+    // Per-link top referrers / countries (Space-Saving only)
+    private int dimensionCapacity = 50;
+    private long maximumLinks = 10_000;
+    private Duration linkIdleTtl = Duration.ofHours(1);
+
+    // Exported as analytics.top.links.clicks{rank, short_code}
+    private int gaugeTopN = 10;
+    private Duration gaugeRefresh = Duration.ofSeconds(15);
+}
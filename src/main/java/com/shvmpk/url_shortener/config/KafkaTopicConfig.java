@@ -0,0 +1,18 @@
+package com.shvmpk.url_shortener.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaTopicConfig {
+    // KafkaAdmin creates the topic on startup, or adds partitions if it has fewer
+    @Bean
+    public NewTopic analyticsTopic(AnalyticsTopicProperties properties) {
+        return TopicBuilder.name(properties.getName())
+                .partitions(properties.getPartitions())
+                .replicas(properties.getReplicas())
+                .build();
+    }
+}
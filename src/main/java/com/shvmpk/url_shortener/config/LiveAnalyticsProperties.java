@@ -0,0 +1,31 @@
+package com.shvmpk.url_shortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "analytics.live")
+public class LiveAnalyticsProperties {
+    // Every node reads the whole topic in its own consumer group to feed its live aggregates
+    private boolean enabled = true;
+
+    // How often subscribers of a link receive a snapshot
+    private Duration pushInterval = Duration.ofSeconds(1);
+
+    // Top countries / referrers cover this window, split into `buckets` slices
+    private Duration window = Duration.ofMinutes(5);
+    private int buckets = 30;
+
+    private int topN = 5;
+
+    // Links with live aggregates; idle links are dropped after linkIdleTtl without clicks or readers
+    private long maximumLinks = 100_000;
+    private Duration linkIdleTtl = Duration.ofMinutes(10);
+
+    // SSE connections are closed after this; EventSource reconnects on its own
+    private Duration emitterTimeout = Duration.ofMinutes(30);
+}
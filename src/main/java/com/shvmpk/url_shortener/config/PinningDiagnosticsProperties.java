@@ -0,0 +1,21 @@
+package com.shvmpk.url_shortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "diagnostics.pinning")
+public class PinningDiagnosticsProperties {
+    // Only active when spring.threads.virtual.enabled=true
+    private boolean enabled = true;
+
+    // Pins shorter than this are not reported (same default as the JFR jdk.VirtualThreadPinned event)
+    private Duration threshold = Duration.ofMillis(20);
+
+    // Frames logged per pinned stack
+    private int stackDepth = 12;
+}
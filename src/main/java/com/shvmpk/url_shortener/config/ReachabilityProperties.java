@@ -0,0 +1,26 @@
+package com.shvmpk.url_shortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "reachability")
+public class ReachabilityProperties {
+    // off: no check; sync: reject unreachable URLs in the request; async: accept and verify in the background
+    public enum Mode { OFF, SYNC, ASYNC }
+
+    private Mode mode = Mode.ASYNC;
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration requestTimeout = Duration.ofSeconds(3);
+
+    // How long a host's last result is trusted
+    private Duration reachableTtl = Duration.ofMinutes(10);
+    private Duration unreachableTtl = Duration.ofMinutes(1);
+
+    private long maximumHosts = 10_000;
+}
@@ -0,0 +1,27 @@
+package com.shvmpk.url_shortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "cache.redirect")
+public class RedirectCacheProperties {
+    private boolean enabled = true;
+    private long maximumSize = 100_000;
+    private Duration ttl = Duration.ofMinutes(5);
+
+    // Alias -> canonical short code, checked against the record it leads to on every use
+    private long aliasMaximumSize = 100_000;
+    private Duration aliasTtl = Duration.ofMinutes(30);
+
+    // Inputs the DB confirmed missing (see NegativeLookupCache); the TTL bounds a missed invalidation
+    private long negativeMaximumSize = 100_000;
+    private Duration negativeTtl = Duration.ofSeconds(30);
+
+    // redirect.miss.ratio covers the resolutions of the last interval
+    private Duration missRatioInterval = Duration.ofSeconds(10);
+}
@@ -1,9 +1,13 @@
 package com.shvmpk.url_shortener.config;
 
+import com.shvmpk.url_shortener.service.CacheInvalidationService;
+import com.shvmpk.url_shortener.service.ExistenceFilterService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
@@ -14,6 +18,25 @@ public class RedisConfig {
         template.setConnectionFactory(connectionFactory);
         template.setKeySerializer(new StringRedisSerializer());
         template.setValueSerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setHashValueSerializer(new StringRedisSerializer());
         return template;
     }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            CacheInvalidationService cacheInvalidationService,
+            CacheInvalidationProperties cacheInvalidationProperties,
+            ExistenceFilterService existenceFilterService,
+            ExistenceFilterProperties existenceFilterProperties
+    ) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        if (cacheInvalidationProperties.isEnabled()) {
+            container.addMessageListener(cacheInvalidationService, new ChannelTopic(cacheInvalidationProperties.getChannel()));
+        }
+        container.addMessageListener(existenceFilterService, new ChannelTopic(existenceFilterProperties.getChannel()));
+        return container;
+    }
 }
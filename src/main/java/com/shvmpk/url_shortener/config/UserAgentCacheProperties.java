@@ -0,0 +1,13 @@
+package com.shvmpk.url_shortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "analytics.user-agent")
+public class UserAgentCacheProperties {
+    // Distinct User-Agent strings kept parsed; least recently used ones are evicted first
+    private long maximumSize = 10_000;
+}
@@ -0,0 +1,18 @@
+package com.shvmpk.url_shortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "counters.visitors")
+public class VisitorCounterProperties {
+    // How often aggregated unique-visitor deltas are written to Postgres
+    private Duration flushInterval = Duration.ofSeconds(5);
+
+    // Max rows per JDBC batch
+    private int batchSize = 500;
+}
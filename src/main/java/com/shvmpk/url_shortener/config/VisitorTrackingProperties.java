@@ -0,0 +1,16 @@
+package com.shvmpk.url_shortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "visitors")
+public class VisitorTrackingProperties {
+    public enum Mode { EXACT, HLL }
+
+    // EXACT keeps a Redis SET of hashed visitor ids per link; HLL keeps a ~12 KB HyperLogLog per link.
+    // Click-limited links always use the exact SET, even in HLL mode
+    private Mode mode = Mode.HLL;
+}
@@ -0,0 +1,23 @@
+package com.shvmpk.url_shortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "id-generator.worker-id")
+public class WorkerIdProperties {
+    public enum Mode { LEASE, MAC }
+
+    // LEASE: a Redis lease per worker id; MAC: derived from the network interface (single node only)
+    private Mode mode = Mode.LEASE;
+    private String keyPrefix = "snowflake:worker:";
+
+    // Redis drops the lease after leaseTtl without a heartbeat; the holder itself stops using the id
+    // one heartbeat interval earlier, so two nodes never issue ids with the same worker id at once
+    private Duration leaseTtl = Duration.ofSeconds(30);
+    private Duration heartbeatInterval = Duration.ofSeconds(10);
+}
@@ -1,15 +1,32 @@
 package com.shvmpk.url_shortener.controller;
 
+import com.shvmpk.url_shortener.dto.AnalyticsRangeResponse;
+import com.shvmpk.url_shortener.dto.TopKResponse;
+import com.shvmpk.url_shortener.dto.UniqueVisitorsResponse;
+import com.shvmpk.url_shortener.exception.InvalidAnalyticsQueryException;
 import com.shvmpk.url_shortener.model.Analytics;
+import com.shvmpk.url_shortener.model.AnalyticsRollup;
+import com.shvmpk.url_shortener.model.ShortCode;
 import com.shvmpk.url_shortener.repository.AnalyticsRepository;
+import com.shvmpk.url_shortener.service.AnalyticsDimensionStore;
+import com.shvmpk.url_shortener.service.AnalyticsRollupService;
+import com.shvmpk.url_shortener.service.HeavyHitterService;
+import com.shvmpk.url_shortener.service.LinkCacheService;
+import com.shvmpk.url_shortener.service.LiveClickBroadcaster;
+import com.shvmpk.url_shortener.service.UrlService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequiredArgsConstructor
@@ -18,6 +35,12 @@ import java.util.List;
 @Tag(name = "Analytics Management", description = "Endpoints for analytics")
 public class AnalyticsController {
     private final AnalyticsRepository analyticsRepository;
+    private final UrlService urlService;
+    private final LinkCacheService linkCacheService;
+    private final LiveClickBroadcaster liveClickBroadcaster;
+    private final AnalyticsRollupService analyticsRollupService;
+    private final AnalyticsDimensionStore analyticsDimensionStore;
+    private final HeavyHitterService heavyHitterService;
 
     // GET /analytics?page=0&size=50 — returns all analytics
     @Operation(summary = "Fetch all analytics")
@@ -26,13 +49,94 @@ public class AnalyticsController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size
     ) {
-        return analyticsRepository.findAll(PageRequest.of(page, size));
+        Page<Analytics> analytics = analyticsRepository.findAll(PageRequest.of(page, size));
+        analyticsDimensionStore.fill(analytics.getContent());
+        return analytics;
     }
 
-    // GET /analytics/{shortCode} — analytics by shortCode
-    @Operation(summary = "Fetch analytics by shortCode")
-    @GetMapping("/{shortCode}")
+    // GET /analytics/top/links?limit=100&minutes=60 — most clicked links (streaming estimate)
+    @Operation(summary = "Fetch the most clicked links")
+    @GetMapping("/top/links")
+    public TopKResponse getTopLinks(
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "60") int minutes
+    ) {
+        return heavyHitterService.topLinks(clampLimit(limit), Duration.ofMinutes(Math.max(minutes, 1)));
+    }
+
+    // GET /analytics/{shortCodeOrAlias}/top?dimension=referrer|country&limit=10&minutes=60
+    @Operation(summary = "Fetch the top referrers or countries of a link")
+    @GetMapping("/{shortCodeOrAlias}/top")
+    public TopKResponse getTopForLink(
+            @PathVariable String shortCodeOrAlias,
+            @RequestParam(defaultValue = "referrer") String dimension,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "60") int minutes
+    ) {
+        ShortCode mapping = urlService.resolveShortCodeOrAlias(shortCodeOrAlias);
+        HeavyHitterService.Dimension parsed;
+        try {
+            parsed = HeavyHitterService.Dimension.valueOf(dimension.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidAnalyticsQueryException("dimension must be one of referrer, country");
+        }
+        return heavyHitterService.topForLink(mapping.getShortCode(), parsed, clampLimit(limit), Duration.ofMinutes(Math.max(minutes, 1)));
+    }
+
+    // GET /analytics/{shortCodeOrAlias}?from=&to=&granularity=hour|day|month — clicks from the rollups
+    // (defaults: the last 30 days, by day)
+    @Operation(summary = "Fetch clicks over a time range")
+    @GetMapping("/{shortCodeOrAlias}")
+    public AnalyticsRangeResponse getAnalyticsRange(
+            @PathVariable String shortCodeOrAlias,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "day") String granularity
+    ) {
+        ShortCode mapping = urlService.resolveShortCodeOrAlias(shortCodeOrAlias);
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofDays(30));
+        return analyticsRollupService.query(mapping.getId(), mapping.getShortCode(), start, end, parseGranularity(granularity));
+    }
+
+    // GET /analytics/{shortCode}/daily — raw daily rows by shortCode
+    @Operation(summary = "Fetch daily analytics rows by shortCode")
+    @GetMapping("/{shortCode}/daily")
     public List<Analytics> getAnalyticsByShortCode(@PathVariable String shortCode) {
-        return analyticsRepository.findByShortCode_ShortCodeIgnoreCase(shortCode);
+        return analyticsDimensionStore.fill(analyticsRepository.findByShortCode_ShortCode(shortCode));
+    }
+
+    // GET /analytics/{shortCodeOrAlias}/visitors — unique visitors (approximate for HyperLogLog-counted links)
+    @Operation(summary = "Fetch unique visitor count")
+    @GetMapping("/{shortCodeOrAlias}/visitors")
+    public UniqueVisitorsResponse getUniqueVisitors(@PathVariable String shortCodeOrAlias) {
+        ShortCode mapping = urlService.resolveShortCodeOrAlias(shortCodeOrAlias);
+        LinkCacheService.VisitorCount count = linkCacheService.countVisitors(mapping.getShortCode(), mapping.getMaxClicks());
+        return UniqueVisitorsResponse.builder()
+                .shortCode(mapping.getShortCode())
+                .uniqueVisitors(count.count())
+                .approximate(count.approximate())
+                .standardError(count.approximate() ? LinkCacheService.HLL_STANDARD_ERROR : 0.0)
+                .build();
+    }
+
+    // GET /analytics/{shortCodeOrAlias}/live — SSE stream of click rate, top countries and top referrers
+    @Operation(summary = "Stream live click statistics")
+    @GetMapping(value = "/{shortCodeOrAlias}/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLiveClicks(@PathVariable String shortCodeOrAlias) {
+        ShortCode mapping = urlService.resolveShortCodeOrAlias(shortCodeOrAlias);
+        return liveClickBroadcaster.subscribe(mapping.getShortCode());
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.min(Math.max(limit, 1), 1_000);
+    }
+
+    private static AnalyticsRollup.Granularity parseGranularity(String granularity) {
+        try {
+            return AnalyticsRollup.Granularity.valueOf(granularity.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidAnalyticsQueryException("granularity must be one of hour, day, month");
+        }
     }
 }
@@ -1,11 +1,14 @@
 package com.shvmpk.url_shortener.controller;
 
+import com.shvmpk.url_shortener.dto.CachedShortCode;
 import com.shvmpk.url_shortener.dto.ShortUrlRequest;
 import com.shvmpk.url_shortener.dto.ShortUrlResponse;
 import com.shvmpk.url_shortener.dto.ShortUrlUpdateRequest;
 import com.shvmpk.url_shortener.dto.ShortUrlUpdateResponse;
 import com.shvmpk.url_shortener.model.ShortCode;
+import com.shvmpk.url_shortener.service.BatchShortenService;
 import com.shvmpk.url_shortener.service.SecureCookieService;
+import com.shvmpk.url_shortener.service.ShortCodeResolver;
 import com.shvmpk.url_shortener.service.UrlService;
 import com.shvmpk.url_shortener.util.PasswordUtil;
 import com.shvmpk.url_shortener.util.ShortUrlUpdateValidator;
@@ -17,12 +20,16 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Duration;
 import java.time.Instant;
 
@@ -34,6 +41,8 @@ import java.time.Instant;
 @Tag(name = "URL Management", description = "Endpoints for managing URLs")
 public class UrlController {
     private final UrlService urlService;
+    private final BatchShortenService batchShortenService;
+    private final ShortCodeResolver shortCodeResolver;
     private final SecureCookieService secureCookieService;
 
     @Operation(summary = "Create a shorten URL")
@@ -44,6 +53,19 @@ public class UrlController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "Create shorten URLs in bulk (JSON array or NDJSON in, one NDJSON result line per item out)")
+    @PostMapping(value = "/shorten/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, BatchShortenService.NDJSON},
+            produces = BatchShortenService.NDJSON)
+    @ResponseBody
+    public ResponseEntity<StreamingResponseBody> shortenBatch(HttpServletRequest request) throws IOException {
+        InputStream body = request.getInputStream();
+        StreamingResponseBody stream = out -> batchShortenService.shorten(body, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(BatchShortenService.NDJSON))
+                .body(stream);
+    }
+
     @Operation(summary = "Check if protected")
     @GetMapping("/{shortCodeOrAlias}")
     public String checkIfProtected(
@@ -52,10 +74,14 @@ public class UrlController {
             HttpServletResponse response,
             Model model
     ) {
-        ShortCode mapping = urlService.resolveShortCodeOrAlias(shortCodeOrAlias);
-        String canonicalShortCode = mapping.getShortCode();
+        // Resolved once; the same record goes through the password check and the redirect
+        CachedShortCode link = shortCodeResolver.resolve(shortCodeOrAlias).orElse(null);
+        if (link == null) {
+            return notFound(shortCodeOrAlias, response, model);
+        }
+        String canonicalShortCode = link.shortCode();
 
-        boolean isProtected = Boolean.TRUE.equals(mapping.getIsProtected());
+        boolean isProtected = link.isProtected();
         boolean isVerified = Boolean.TRUE.equals(request.getSession().getAttribute("verified_" + canonicalShortCode));
         String source = null;
 
@@ -74,7 +100,7 @@ public class UrlController {
 
         // If protected + verified => show already-verified page
         if (isProtected && isVerified) {
-            String targetUrl = urlService.redirectUrl(canonicalShortCode, request, response, true);
+            String targetUrl = urlService.redirectUrl(link, request, response);
             model.addAttribute("targetUrl", targetUrl);
             model.addAttribute("verifiedSource", source);
             model.addAttribute("originalInput", shortCodeOrAlias); // Keep original for display
@@ -83,7 +109,7 @@ public class UrlController {
 
         // If not protected => redirect directly (no password check required)
         if (!isProtected) {
-            String targetUrl = urlService.redirectUrl(canonicalShortCode, request, response, true);
+            String targetUrl = urlService.redirectUrl(link, request, response);
             return "redirect:" + targetUrl;
         }
 
@@ -105,11 +131,14 @@ public class UrlController {
             HttpSession session,
             Model model
     ) {
-        ShortCode mapping = urlService.resolveShortCodeOrAlias(shortCodeOrAlias);
-        String canonicalShortCode = mapping.getShortCode();
+        CachedShortCode link = shortCodeResolver.resolve(shortCodeOrAlias).orElse(null);
+        if (link == null) {
+            return notFound(shortCodeOrAlias, response, model);
+        }
+        String canonicalShortCode = link.shortCode();
 
-        if (!Boolean.TRUE.equals(mapping.getIsProtected())) {
-            return "redirect:" + urlService.redirectUrl(canonicalShortCode, request, response, true);
+        if (!link.isProtected()) {
+            return "redirect:" + urlService.redirectUrl(link, request, response);
         }
 
         // Retry check
@@ -124,7 +153,7 @@ public class UrlController {
             return "verify";
         }
 
-        if (!PasswordUtil.verifyPassword(password, mapping.getPassword())) {
+        if (!PasswordUtil.verifyPassword(password, link.password())) {
             attempts++;
             session.setAttribute("attempts:" + canonicalShortCode, attempts);
             session.setAttribute("lastAttempt:" + canonicalShortCode, Instant.now());
@@ -154,10 +183,17 @@ public class UrlController {
             session.setAttribute("verified_" + canonicalShortCode, true);
         }
 
-        String targetUrl = urlService.redirectUrl(canonicalShortCode, request, response, true);
+        String targetUrl = urlService.redirectUrl(link, request, response);
         return "redirect:" + targetUrl;
     }
 
+    // Unknown code or alias: a plain 404 page, no exception on the path scanners hit
+    private static String notFound(String shortCodeOrAlias, HttpServletResponse response, Model model) {
+        response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        model.addAttribute("originalInput", shortCodeOrAlias);
+        return "not-found";
+    }
+
     @Operation(summary = "Update short URL")
     @PatchMapping("/{shortCodeOrAlias}")
     @ResponseBody
@@ -7,7 +7,6 @@ import lombok.NoArgsConstructor;
 import java.io.Serializable;
 import java.time.Instant;
 import java.time.LocalDate;
-import java.util.List;
 import java.util.Map;
 
 @Data
@@ -18,6 +17,8 @@ public class AnalyticsEvent implements Serializable {
     private String shortCode;
     private LocalDate accessDate;
 
+    // Only set on legacy JSON events; the binary format carries raw dimensions and the consumer
+    // derives counters from them (see AnalyticsEventCodec)
     private Integer totalVisitCount;
 
     private Map<String, Integer> browserVisitCounts;
@@ -27,6 +28,7 @@ public class AnalyticsEvent implements Serializable {
     private Map<String, Instant> browserLastSeen;
     private Map<String, Instant> deviceLastSeen;
 
+    // Derived from userAgent by the consumer
     private String os;
     private String deviceType;
     private String browser;
@@ -47,10 +49,5 @@ public class AnalyticsEvent implements Serializable {
     private Boolean isBot;
     private String userAgent;
 
-    private List<Instant> recentAccessTimes;
-
-    private Integer clicksLast10Min;
-    private Integer clicksLast1Hour;
-
     private Instant lastAccessTime;
 }
\ No newline at end of file
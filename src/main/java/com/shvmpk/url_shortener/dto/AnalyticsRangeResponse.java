@@ -0,0 +1,34 @@
+package com.shvmpk.url_shortener.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsRangeResponse {
+    private String shortCode;
+    private Instant from;               // inclusive, aligned down to the hour
+    private Instant to;                 // exclusive, aligned up to the hour
+    private String granularity;
+    private Long totalClicks;
+    private Map<String, Map<String, Long>> dimensions; // dimension -> value -> clicks, over the whole range
+    private List<Bucket> buckets;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+        private Instant start;
+        private Long clicks;
+        private Map<String, Map<String, Long>> dimensions;
+    }
+}
@@ -0,0 +1,25 @@
+package com.shvmpk.url_shortener.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One NDJSON line of the POST /urls/shorten/batch response
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchShortenResult {
+    private Integer index;              // position of the item in the request body
+    private Status status;
+    private ShortUrlResponse result;    // null when status is ERROR
+    private String error;               // null unless status is ERROR
+
+    public enum Status {
+        CREATED,    // new mapping
+        EXISTING,   // the URL was already shortened
+        DUPLICATE,  // same URL as an earlier item of the same chunk (later chunks see it as EXISTING)
+        ERROR
+    }
+}
@@ -0,0 +1,50 @@
+package com.shvmpk.url_shortener.dto;
+
+import com.shvmpk.url_shortener.model.ShortCode;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+// Immutable view of a ShortCode holding only what the redirect and shorten paths need
+@Builder(toBuilder = true)
+public record CachedShortCode(
+        Long id,
+        String shortCode,
+        String alias,
+        String originalUrl,
+        boolean isProtected,
+        String password,
+        LocalDateTime expiresAt,
+        Integer maxClicks,
+        int uniqueVisitorCount,
+        boolean isClickBased,
+        boolean isDisabled
+) {
+    public static CachedShortCode from(ShortCode entity) {
+        return CachedShortCode.builder()
+                .id(entity.getId())
+                .shortCode(entity.getShortCode())
+                .alias(entity.getAlias())
+                .originalUrl(entity.getOriginalUrl())
+                .isProtected(Boolean.TRUE.equals(entity.getIsProtected()))
+                .password(entity.getPassword())
+                .expiresAt(entity.getExpiresAt())
+                .maxClicks(entity.getMaxClicks())
+                .uniqueVisitorCount(entity.getUniqueVisitorCount() != null ? entity.getUniqueVisitorCount() : 0)
+                .isClickBased(Boolean.TRUE.equals(entity.getIsClickBased()))
+                .isDisabled(Boolean.TRUE.equals(entity.getIsDisabled()))
+                .build();
+    }
+
+    public boolean isExpired(LocalDateTime now) {
+        return expiresAt != null && expiresAt.isBefore(now);
+    }
+
+    public boolean isClickLimited() {
+        return maxClicks != null;
+    }
+
+    public boolean isClickLimitReached() {
+        return maxClicks != null && uniqueVisitorCount >= maxClicks;
+    }
+}
@@ -0,0 +1,24 @@
+package com.shvmpk.url_shortener.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveClickStats {
+    private String shortCode;
+    private Instant at;
+    private Double clicksPerSecond;   // over the last minute
+    private Integer clicksLastMinute;
+    private Integer clicksInWindow;
+    private Long windowSeconds;
+    private Map<String, Integer> topCountries;  // ordered, highest first
+    private Map<String, Integer> topReferrers;  // referrer host, "direct" when absent
+}
@@ -0,0 +1,31 @@
+package com.shvmpk.url_shortener.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopKResponse {
+    private String scope;       // "links" or the short code
+    private String dimension;   // link, referrer or country
+    private Instant at;
+    private Long windowSeconds;
+    private List<Item> items;   // highest first
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private String key;
+        private Long clicks;    // upper bound of the true count
+        private Long maxError;  // true count >= clicks - maxError
+    }
+}
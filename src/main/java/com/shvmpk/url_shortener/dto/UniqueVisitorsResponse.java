@@ -0,0 +1,17 @@
+package com.shvmpk.url_shortener.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UniqueVisitorsResponse {
+    private String shortCode;
+    private Long uniqueVisitors;
+    private Boolean approximate;
+    private Double standardError; // relative, e.g. 0.0081 = ±0.81% (one standard deviation)
+}
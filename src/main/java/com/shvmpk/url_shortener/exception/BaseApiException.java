@@ -11,4 +11,10 @@ public abstract class BaseApiException extends RuntimeException {
         super(message);
         this.status = status;
     }
+
+    // Without a stack trace: for outcomes that are routine rather than faults (e.g. 404 on a scan)
+    protected BaseApiException(String message, HttpStatus status, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+        this.status = status;
+    }
 }
@@ -26,7 +26,11 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(BaseApiException.class)
     public ResponseEntity<Map<String, Object>> handleApiException(BaseApiException ex) {
-        log.error("API exception", ex);
+        if (ex.getStatus() == HttpStatus.NOT_FOUND) {
+            log.debug("Not found: {}", ex.getMessage());
+        } else {
+            log.error("API exception", ex);
+        }
         Map<String, Object> error = new HashMap<>();
         error.put("error", ex.getMessage());
         error.put("status", ex.getStatus().value());
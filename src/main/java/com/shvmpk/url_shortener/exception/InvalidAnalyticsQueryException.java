@@ -0,0 +1,9 @@
+package com.shvmpk.url_shortener.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidAnalyticsQueryException extends BaseApiException {
+    public InvalidAnalyticsQueryException(String message) {
+        super(message, HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,9 @@
+package com.shvmpk.url_shortener.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class LinkDisabledException extends BaseApiException {
+    public LinkDisabledException(String message) {
+        super(message, HttpStatus.GONE);
+    }
+}
@@ -0,0 +1,10 @@
+package com.shvmpk.url_shortener.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class ResourceNotFoundException extends BaseApiException {
+    // Thrown for every unknown code a scanner tries; the stack trace would only cost time and log space
+    public ResourceNotFoundException(String message) {
+        super(message, HttpStatus.NOT_FOUND, false);
+    }
+}
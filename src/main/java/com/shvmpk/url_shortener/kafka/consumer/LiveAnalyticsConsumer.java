@@ -0,0 +1,34 @@
+package com.shvmpk.url_shortener.kafka.consumer;
+
+import com.shvmpk.url_shortener.dto.AnalyticsEvent;
+import com.shvmpk.url_shortener.service.HeavyHitterService;
+import com.shvmpk.url_shortener.service.LiveClickAggregator;
+import lombok.AllArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@AllArgsConstructor
+public class LiveAnalyticsConsumer {
+
+    private final LiveClickAggregator aggregator;
+    private final HeavyHitterService heavyHitterService;
+
+    // A group per node, so each node sees every click; starts at the live end of the topic since only
+    // the recent window matters (live stream and heavy hitters). Runs next to analytics-group and does not affect its offsets.
+    @KafkaListener(
+            topics = "${analytics.topic.name:analytics-events}",
+            groupId = "#{'analytics-live-' + T(java.util.UUID).randomUUID()}",
+            properties = "auto.offset.reset=latest",
+            autoStartup = "${analytics.live.enabled:true}"
+    )
+    public void consume(List<ConsumerRecord<String, AnalyticsEvent>> records) {
+        for (ConsumerRecord<String, AnalyticsEvent> record : records) {
+            aggregator.record(record.value());
+            heavyHitterService.record(record.value());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.shvmpk.url_shortener.kafka.producer;
 
+import com.shvmpk.url_shortener.config.AnalyticsTopicProperties;
 import com.shvmpk.url_shortener.dto.AnalyticsEvent;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
@@ -10,9 +11,11 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class KafkaAnalyticsProducer {
     private final KafkaTemplate<String, AnalyticsEvent> kafkaTemplate;
+    private final AnalyticsTopicProperties topicProperties;
 
+    // Keyed by canonical short code: all events of a link go to the same partition, in order
     public void sendAnalyticsEvent(AnalyticsEvent event) {
-        kafkaTemplate.send("analytics-events", event);
+        kafkaTemplate.send(topicProperties.getName(), event.getShortCode(), event);
     }
 
     @PostConstruct
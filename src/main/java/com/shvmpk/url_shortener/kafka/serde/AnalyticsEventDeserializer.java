@@ -0,0 +1,32 @@
+package com.shvmpk.url_shortener.kafka.serde;
+
+import com.shvmpk.url_shortener.dto.AnalyticsEvent;
+import com.shvmpk.url_shortener.util.AnalyticsEventCodec;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+// Binary AnalyticsEventCodec records, plus the JSON records written before the binary format
+public class AnalyticsEventDeserializer implements Deserializer<AnalyticsEvent> {
+    // Fixed target type and no type headers, so no trusted packages are needed
+    private final JsonDeserializer<AnalyticsEvent> legacyJson = new JsonDeserializer<>(AnalyticsEvent.class, false);
+
+    @Override
+    public AnalyticsEvent deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) return null;
+
+        if (data[0] == '{') {
+            return legacyJson.deserialize(topic, data);
+        }
+        try {
+            return AnalyticsEventCodec.decode(data);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Invalid analytics event on " + topic, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        legacyJson.close();
+    }
+}
@@ -0,0 +1,12 @@
+package com.shvmpk.url_shortener.kafka.serde;
+
+import com.shvmpk.url_shortener.dto.AnalyticsEvent;
+import com.shvmpk.url_shortener.util.AnalyticsEventCodec;
+import org.apache.kafka.common.serialization.Serializer;
+
+public class AnalyticsEventSerializer implements Serializer<AnalyticsEvent> {
+    @Override
+    public byte[] serialize(String topic, AnalyticsEvent event) {
+        return event != null ? AnalyticsEventCodec.encode(event) : null;
+    }
+}
@@ -1,17 +1,20 @@
 package com.shvmpk.url_shortener.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
-import com.shvmpk.url_shortener.util.JsonListInstantConverter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.shvmpk.url_shortener.util.JsonInstantMapConverter;
 import com.shvmpk.url_shortener.util.JsonMapConverter;
+import com.shvmpk.url_shortener.util.SlidingWindowCounter;
+import com.shvmpk.url_shortener.util.SlidingWindowCounterConverter;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.Instant;
 import java.time.LocalDate;
-import java.util.List;
 import java.util.Map;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"short_code_id", "access_date"}))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -34,6 +37,8 @@ public class Analytics {
 
     private Integer totalVisitCount;
 
+    // JSON storage mode only; with analytics.storage.mode=table these live in analytics_dimension
+    // and are filled in by AnalyticsDimensionStore on read
     @Convert(converter = JsonMapConverter.class)
     private Map<String, Integer> browserVisitCounts;
 
@@ -43,10 +48,10 @@ public class Analytics {
     @Convert(converter = JsonMapConverter.class)
     private Map<String, Integer> osVisitCounts;
 
-    @Convert(converter = JsonMapConverter.class)
+    @Convert(converter = JsonInstantMapConverter.class)
     private Map<String, Instant> browserLastSeen;
 
-    @Convert(converter = JsonMapConverter.class)
+    @Convert(converter = JsonInstantMapConverter.class)
     private Map<String, Instant> deviceLastSeen;
 
     private String country;
@@ -66,8 +71,10 @@ public class Analytics {
     private Boolean isBot;
     private String userAgent;
 
-    @Convert(converter = JsonListInstantConverter.class)
-    private List<Instant> recentAccessTimes;
+    // Per-minute clicks of the last hour; clicksLast10Min / clicksLast1Hour are read from it on write
+    @JsonIgnore
+    @Convert(converter = SlidingWindowCounterConverter.class)
+    private SlidingWindowCounter clickWindow;
 
     private Integer clicksLast10Min;
     private Integer clicksLast1Hour;
@@ -0,0 +1,47 @@
+package com.shvmpk.url_shortener.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.Instant;
+
+/*
+ * Visit count and last visit of one browser / OS / device type value on one daily Analytics row
+ * (analytics.storage.mode=table). Written only through AnalyticsDimensionStore's ON CONFLICT
+ * increments; the mapping exists for the schema.
+ */
+@Entity
+@Table(name = "analytics_dimension", uniqueConstraints = @UniqueConstraint(
+        name = "uk_analytics_dimension_value",
+        columnNames = {"analytics_id", "dimension", "dimension_key"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString(exclude = {"analytics"})
+@EqualsAndHashCode(exclude = {"analytics"})
+public class AnalyticsDimension {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "analytics_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Analytics analytics;
+
+    @Column(nullable = false, length = 16)
+    private String dimension;
+
+    @Column(name = "dimension_key", nullable = false)
+    private String key;
+
+    @Column(nullable = false)
+    private Long visitCount;
+
+    private Instant lastSeen;
+}
@@ -0,0 +1,75 @@
+package com.shvmpk.url_shortener.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/*
+ * Click count of one (link, granularity, bucket, dimension value). The "total" dimension has an
+ * empty value. Buckets start at UTC hour / day / month boundaries.
+ *
+ * Written only through AnalyticsRollupService's INSERT ... ON CONFLICT increments and read with
+ * plain SQL; the mapping exists for the schema.
+ */
+@Entity
+@Table(name = "analytics_rollup", uniqueConstraints = @UniqueConstraint(
+        name = "uk_analytics_rollup_bucket",
+        columnNames = {"short_code_id", "granularity", "bucket_start", "dimension", "dimension_value"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString(exclude = {"shortCode"})
+@EqualsAndHashCode(exclude = {"shortCode"})
+public class AnalyticsRollup {
+
+    public enum Granularity {
+        HOUR, DAY, MONTH;
+
+        public LocalDateTime truncate(LocalDateTime time) {
+            return switch (this) {
+                case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+                case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+                case MONTH -> time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+            };
+        }
+
+        public LocalDateTime next(LocalDateTime bucketStart) {
+            return switch (this) {
+                case HOUR -> bucketStart.plusHours(1);
+                case DAY -> bucketStart.plusDays(1);
+                case MONTH -> bucketStart.plusMonths(1);
+            };
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "short_code_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private ShortCode shortCode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 5)
+    private Granularity granularity;
+
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false, length = 16)
+    private String dimension;
+
+    @Column(nullable = false)
+    private String dimensionValue;
+
+    @Column(nullable = false)
+    private Long clicks;
+}
@@ -2,14 +2,20 @@ package com.shvmpk.url_shortener.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.shvmpk.url_shortener.util.LookupKeys;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "ix_short_code_original_url_hash", columnList = "original_url_hash"),
+        @Index(name = "ix_short_code_updated_at", columnList = "updated_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -19,17 +25,28 @@ import java.util.List;
 @EqualsAndHashCode(exclude = {"analyticsList", "urlVersions", "currentVersion"})
 public class ShortCode {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Sequence ids (allocated 50 at a time) let Hibernate batch inserts; IDENTITY forces one round trip per row
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "short_code_seq")
+    @SequenceGenerator(name = "short_code_seq", sequenceName = "short_code_seq", allocationSize = 50)
     private Long id;
 
+    // Base62, case-sensitive: matched exactly through its unique index
+    @Column(nullable = false, unique = true)
     private String shortCode;
 
     @Column(nullable = false)
     private String originalUrl;
 
-    @Column(unique = true)
+    // LookupKeys.urlHash(originalUrl)
+    @Column(name = "original_url_hash", length = 32)
+    private String originalUrlHash;
+
     private String alias;
 
+    // LookupKeys.alias(alias); aliases are case-insensitive, so uniqueness is enforced on this key
+    @Column(unique = true)
+    private String aliasKey;
+
     @Column(nullable = false)
     @Builder.Default
     private Boolean isProtected = false;
@@ -48,9 +65,18 @@ public class ShortCode {
     @Builder.Default
     private Boolean isClickBased = false;
 
+    // Set when the background reachability check finds the destination dead
+    @Builder.Default
+    private Boolean isDisabled = false;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 
+    // Lets ExistenceFilterService catch up on codes and aliases written after its checkpoint
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     @OneToMany(mappedBy = "shortCode", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
     private List<Analytics> analyticsList;
@@ -63,4 +89,12 @@ public class ShortCode {
     @JsonIgnore
     @JoinColumn(name = "current_version_id")
     private UrlVersion currentVersion;
+
+    // Also called before StatelessSession inserts, which do not run entity callbacks
+    @PrePersist
+    @PreUpdate
+    public void updateLookupKeys() {
+        aliasKey = LookupKeys.alias(alias);
+        originalUrlHash = originalUrl != null ? LookupKeys.urlHash(originalUrl) : null;
+    }
 }
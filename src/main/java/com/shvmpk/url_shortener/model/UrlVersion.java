@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
 public class UrlVersion {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "url_version_seq")
+    @SequenceGenerator(name = "url_version_seq", sequenceName = "url_version_seq", allocationSize = 50)
     private Long id;
 
     private Integer versionNumber;
@@ -6,11 +6,14 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AnalyticsRepository extends JpaRepository<Analytics, Long> {
-    List<Analytics> findByShortCode_ShortCodeIgnoreCase(String shortCode);
+    List<Analytics> findByShortCode_ShortCode(String shortCode);
     Optional<Analytics> findByShortCodeAndAccessDate (ShortCode shortCode, LocalDate accessDate);
+    // Superset of the wanted (id, date) pairs; callers pick the pairs they need
+    List<Analytics> findByShortCodeIdInAndAccessDateIn(Collection<Long> shortCodeIds, Collection<LocalDate> accessDates);
 }
@@ -2,15 +2,35 @@ package com.shvmpk.url_shortener.repository;
 
 import com.shvmpk.url_shortener.model.ShortCode;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UrlRepository extends JpaRepository<ShortCode, Long> {
-    boolean existsByShortCodeIgnoreCase(String shortCode);
-    boolean existsByAliasIgnoreCase(String alias);
-    Optional<ShortCode> findFirstByOriginalUrlIgnoreCase(String originalUrl);
-    Optional<ShortCode> findByShortCodeIgnoreCase(String shortCode);
-    Optional<ShortCode> findByAliasIgnoreCase(String alias);
+    // Every lookup below is an equality match on an indexed key column (see LookupKeys)
+    boolean existsByShortCode(String shortCode);
+    boolean existsByAliasKey(String aliasKey);
+    Optional<ShortCode> findByShortCode(String shortCode);
+    // Either key in one round trip; a caller that gets two rows prefers the short code match
+    List<ShortCode> findByShortCodeOrAliasKey(String shortCode, String aliasKey);
+    Optional<ShortCode> findFirstByOriginalUrlHashAndOriginalUrl(String originalUrlHash, String originalUrl);
+
+    List<ShortCode> findByShortCodeIn(Collection<String> shortCodes);
+    List<ShortCode> findByOriginalUrlHashIn(Collection<String> originalUrlHashes);
+
+    @Query("SELECT s.aliasKey FROM ShortCode s WHERE s.aliasKey IN :aliasKeys")
+    List<String> findExistingAliasKeys(@Param("aliasKeys") Collection<String> aliasKeys);
+
+    // Single-column update so a concurrent visitor-count flush is not overwritten
+    @Transactional
+    @Modifying
+    @Query("UPDATE ShortCode s SET s.isDisabled = true WHERE s.id = :id")
+    int disableById(@Param("id") Long id);
 }
@@ -0,0 +1,364 @@
+package com.shvmpk.url_shortener.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.shvmpk.url_shortener.config.AnalyticsConsumerProperties;
+import com.shvmpk.url_shortener.dto.AnalyticsEvent;
+import com.shvmpk.url_shortener.model.Analytics;
+import com.shvmpk.url_shortener.model.ShortCode;
+import com.shvmpk.url_shortener.repository.AnalyticsRepository;
+import com.shvmpk.url_shortener.repository.UrlRepository;
+import com.shvmpk.url_shortener.service.AnalyticsStateStore.RowKey;
+import com.shvmpk.url_shortener.util.SlidingWindowCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+
+/*
+ * Applies a poll's worth of analytics events to the daily Analytics rows.
+ *
+ * Events are pre-aggregated in memory per (short code, access date). Rows are taken from the owning
+ * partition's AnalyticsStateStore, and only rows not held there are read (one query). Changed rows
+ * are written through a StatelessSession in one transaction - plain versioned INSERT/UPDATE
+ * statements, no re-read before the update - together with the batch's AnalyticsRollupService
+ * increments, so the listener returns, and the container commits the offsets, only after the batch
+ * is durable.
+ */
+@Service
+public class AnalyticsAggregationService {
+    private static final int WRITE_BATCH_SIZE = 50;
+
+    private final AnalyticsRepository analyticsRepository;
+    private final UrlRepository urlRepository;
+    private final UserAgentClassifier userAgentClassifier;
+    private final AnalyticsStateStore stateStore;
+    private final AnalyticsRollupService rollupService;
+    private final AnalyticsDimensionStore dimensionStore;
+    private final SessionFactory sessionFactory;
+
+    // short code (case-sensitive, as carried by the event) -> ShortCode id
+    private final Cache<String, Long> shortCodeIds;
+
+    private final Counter eventsApplied;
+    private final DistributionSummary aggregatesPerBatch;
+
+    public AnalyticsAggregationService(AnalyticsRepository analyticsRepository,
+                                       UrlRepository urlRepository,
+                                       UserAgentClassifier userAgentClassifier,
+                                       AnalyticsStateStore stateStore,
+                                       AnalyticsRollupService rollupService,
+                                       AnalyticsDimensionStore dimensionStore,
+                                       EntityManagerFactory entityManagerFactory,
+                                       AnalyticsConsumerProperties properties,
+                                       MeterRegistry meterRegistry) {
+        this.analyticsRepository = analyticsRepository;
+        this.urlRepository = urlRepository;
+        this.userAgentClassifier = userAgentClassifier;
+        this.stateStore = stateStore;
+        this.rollupService = rollupService;
+        this.dimensionStore = dimensionStore;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.shortCodeIds = CacheBuilder.newBuilder()
+                .maximumSize(properties.getShortCodeCacheSize())
+                .expireAfterWrite(properties.getShortCodeCacheTtl())
+                .recordStats()
+                .build();
+        this.eventsApplied = Counter.builder("analytics.consumer.events")
+                .description("Analytics events applied to the daily rows")
+                .register(meterRegistry);
+        this.aggregatesPerBatch = DistributionSummary.builder("analytics.consumer.aggregates")
+                .description("Distinct (short code, date) rows written per consumed batch")
+                .register(meterRegistry);
+        GuavaCacheMetrics.monitor(meterRegistry, shortCodeIds, "analytics.consumer.short-codes");
+    }
+
+    // Sum of the events for one (short code, date)
+    private static final class Aggregate {
+        int visits;
+        final Map<String, Integer> browserVisitCounts = new HashMap<>();
+        final Map<String, Integer> deviceTypeVisitCounts = new HashMap<>();
+        final Map<String, Integer> osVisitCounts = new HashMap<>();
+        final Map<String, Instant> browserLastSeen = new HashMap<>();
+        final Map<String, Instant> deviceLastSeen = new HashMap<>();
+        // epoch minute -> clicks
+        final Map<Long, Integer> clicksPerMinute = new HashMap<>();
+        AnalyticsEvent latest;
+
+        void add(AnalyticsEvent event) {
+            Instant seenAt = event.getLastAccessTime();
+            int clicks = clicksOf(event);
+            if (event.getBrowserVisitCounts() != null) {
+                // Legacy JSON event carrying its own single-click maps
+                mergeMapCount(browserVisitCounts, event.getBrowserVisitCounts());
+                mergeMapCount(deviceTypeVisitCounts, event.getDeviceTypeVisitCounts());
+                mergeMapCount(osVisitCounts, event.getOsVisitCounts());
+                mergeLastSeen(browserLastSeen, event.getBrowserLastSeen());
+                mergeLastSeen(deviceLastSeen, event.getDeviceLastSeen());
+            } else {
+                browserVisitCounts.merge(event.getBrowser(), 1, Integer::sum);
+                deviceTypeVisitCounts.merge(event.getDeviceType(), 1, Integer::sum);
+                osVisitCounts.merge(event.getOs(), 1, Integer::sum);
+                mergeLastSeen(browserLastSeen, Map.of(event.getBrowser(), seenAt));
+                mergeLastSeen(deviceLastSeen, Map.of(event.getDeviceType(), seenAt));
+            }
+            visits += clicks;
+            clicksPerMinute.merge(Math.floorDiv(seenAt.toEpochMilli(), SlidingWindowCounter.BUCKET_MILLIS), clicks, Integer::sum);
+            if (latest == null || event.getLastAccessTime().isAfter(latest.getLastAccessTime())) {
+                latest = event;
+            }
+        }
+    }
+
+    // partition -> its events, in offset order
+    public void applyBatch(Map<Integer, List<AnalyticsEvent>> eventsByPartition) {
+        List<AnalyticsEvent> events = new ArrayList<>();
+        eventsByPartition.values().forEach(events::addAll);
+        Map<String, Long> ids = resolveShortCodeIds(events);
+
+        Map<RowKey, Aggregate> aggregates = new HashMap<>();
+        Map<RowKey, Integer> owners = new HashMap<>();
+        Map<AnalyticsRollupService.RollupKey, Long> rollups = new HashMap<>();
+        eventsByPartition.forEach((partition, partitionEvents) -> {
+            for (AnalyticsEvent event : partitionEvents) {
+                if (event == null || event.getShortCode() == null || event.getAccessDate() == null) continue;
+
+                Long id = ids.get(event.getShortCode());
+                if (id == null) continue; // link deleted since the click
+
+                classifyUserAgent(event);
+                RowKey key = new RowKey(id, event.getAccessDate());
+                aggregates.computeIfAbsent(key, k -> new Aggregate()).add(event);
+                owners.put(key, partition);
+                rollupService.add(rollups, id, event, clicksOf(event));
+            }
+        });
+        if (aggregates.isEmpty()) return;
+
+        Map<RowKey, Analytics> rows = new HashMap<>();
+        aggregates.keySet().forEach(key -> {
+            Analytics row = stateStore.get(owners.get(key), key);
+            if (row != null) rows.put(key, row);
+        });
+        loadMissingRows(aggregates.keySet(), rows);
+
+        aggregates.forEach((key, aggregate) -> {
+            Analytics row = rows.computeIfAbsent(key, k ->
+                    newAnalytics(urlRepository.getReferenceById(k.shortCodeId()), k.accessDate()));
+            apply(row, aggregate, !dimensionStore.isEnabled());
+        });
+
+        try {
+            write(rows, aggregates, rollups);
+        } catch (RuntimeException e) {
+            // The in-memory rows are now ahead of the database: drop them so the redelivered batch
+            // starts from what was committed (this also recovers from a stale version after a rebalance)
+            eventsByPartition.keySet().forEach(stateStore::clear);
+            shortCodeIds.invalidateAll();
+            throw e;
+        }
+        rows.forEach((key, row) -> stateStore.put(owners.get(key), key, row));
+
+        eventsApplied.increment(events.size());
+        aggregatesPerBatch.record(rows.size());
+    }
+
+    private void loadMissingRows(Set<RowKey> keys, Map<RowKey, Analytics> rows) {
+        Set<Long> shortCodeIdSet = new HashSet<>();
+        Set<LocalDate> dates = new HashSet<>();
+        keys.forEach(key -> {
+            if (!rows.containsKey(key)) {
+                shortCodeIdSet.add(key.shortCodeId());
+                dates.add(key.accessDate());
+            }
+        });
+        if (shortCodeIdSet.isEmpty()) return;
+
+        for (Analytics row : analyticsRepository.findByShortCodeIdInAndAccessDateIn(shortCodeIdSet, dates)) {
+            RowKey key = new RowKey(row.getShortCode().getId(), row.getAccessDate());
+            if (keys.contains(key)) {
+                rows.putIfAbsent(key, row);
+            }
+        }
+    }
+
+    // Versioned INSERT/UPDATE without loading the rows into a persistence context, plus the rollup
+    // and (TABLE mode) dimension increments on the same connection and transaction
+    private void write(Map<RowKey, Analytics> rows, Map<RowKey, Aggregate> aggregates,
+                       Map<AnalyticsRollupService.RollupKey, Long> rollups) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(WRITE_BATCH_SIZE);
+            Transaction transaction = session.beginTransaction();
+            try {
+                for (Analytics row : rows.values()) {
+                    if (row.getId() == null) {
+                        session.insert(row);
+                    } else {
+                        session.update(row);
+                    }
+                }
+                // Inserted rows have their IDENTITY ids by now
+                Map<AnalyticsDimensionStore.DimensionKey, AnalyticsDimensionStore.Increment> dimensions =
+                        dimensionStore.isEnabled() ? dimensionIncrements(rows, aggregates) : Map.of();
+                session.doWork(connection -> {
+                    rollupService.write(connection, rollups, WRITE_BATCH_SIZE);
+                    dimensionStore.increment(connection, dimensions, WRITE_BATCH_SIZE);
+                });
+                transaction.commit();
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static Map<AnalyticsDimensionStore.DimensionKey, AnalyticsDimensionStore.Increment> dimensionIncrements(
+            Map<RowKey, Analytics> rows, Map<RowKey, Aggregate> aggregates) {
+        Map<AnalyticsDimensionStore.DimensionKey, AnalyticsDimensionStore.Increment> increments = new HashMap<>();
+        aggregates.forEach((key, aggregate) -> {
+            long analyticsId = rows.get(key).getId();
+            addIncrements(increments, analyticsId, AnalyticsDimensionStore.BROWSER, aggregate.browserVisitCounts, aggregate.browserLastSeen);
+            addIncrements(increments, analyticsId, AnalyticsDimensionStore.DEVICE, aggregate.deviceTypeVisitCounts, aggregate.deviceLastSeen);
+            addIncrements(increments, analyticsId, AnalyticsDimensionStore.OS, aggregate.osVisitCounts, Map.of());
+        });
+        return increments;
+    }
+
+    private static void addIncrements(Map<AnalyticsDimensionStore.DimensionKey, AnalyticsDimensionStore.Increment> increments,
+                                      long analyticsId, String dimension,
+                                      Map<String, Integer> counts, Map<String, Instant> lastSeen) {
+        counts.forEach((value, visits) -> increments
+                .computeIfAbsent(new AnalyticsDimensionStore.DimensionKey(analyticsId, dimension, value),
+                        k -> new AnalyticsDimensionStore.Increment())
+                .add(visits, lastSeen.get(value)));
+    }
+
+    private Map<String, Long> resolveShortCodeIds(List<AnalyticsEvent> events) {
+        Map<String, Long> ids = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (AnalyticsEvent event : events) {
+            if (event == null || event.getShortCode() == null) continue;
+            String code = event.getShortCode();
+            Long id = shortCodeIds.getIfPresent(code);
+            if (id != null) {
+                ids.put(code, id);
+            } else {
+                missing.add(code);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (ShortCode shortCode : urlRepository.findByShortCodeIn(missing)) {
+                ids.put(shortCode.getShortCode(), shortCode.getId());
+                shortCodeIds.put(shortCode.getShortCode(), shortCode.getId());
+            }
+        }
+        return ids;
+    }
+
+    private Analytics newAnalytics(ShortCode shortCode, LocalDate accessDate) {
+        // TABLE mode keeps the dimension maps out of the row
+        boolean json = !dimensionStore.isEnabled();
+        return Analytics.builder()
+                .shortCode(shortCode)
+                .accessDate(accessDate)
+                .browserVisitCounts(json ? new HashMap<>() : null)
+                .deviceTypeVisitCounts(json ? new HashMap<>() : null)
+                .osVisitCounts(json ? new HashMap<>() : null)
+                .browserLastSeen(json ? new HashMap<>() : null)
+                .deviceLastSeen(json ? new HashMap<>() : null)
+                .totalVisitCount(0)
+                .clickWindow(new SlidingWindowCounter())
+                .clicksLast10Min(0)
+                .clicksLast1Hour(0)
+                .build();
+    }
+
+    private static void apply(Analytics analytics, Aggregate aggregate, boolean jsonDimensions) {
+        if (jsonDimensions) {
+            // Merge counts
+            mergeMapCount(analytics.getBrowserVisitCounts(), aggregate.browserVisitCounts);
+            mergeMapCount(analytics.getDeviceTypeVisitCounts(), aggregate.deviceTypeVisitCounts);
+            mergeMapCount(analytics.getOsVisitCounts(), aggregate.osVisitCounts);
+
+            // Merge last seen
+            mergeLastSeen(analytics.getBrowserLastSeen(), aggregate.browserLastSeen);
+            mergeLastSeen(analytics.getDeviceLastSeen(), aggregate.deviceLastSeen);
+        }
+
+        analytics.setTotalVisitCount(analytics.getTotalVisitCount() + aggregate.visits);
+
+        // Clicks of the last hour
+        SlidingWindowCounter window = analytics.getClickWindow() != null
+                ? analytics.getClickWindow()
+                : new SlidingWindowCounter();
+        aggregate.clicksPerMinute.forEach((minute, clicks) ->
+                window.record(Instant.ofEpochMilli(minute * SlidingWindowCounter.BUCKET_MILLIS), clicks));
+        analytics.setClickWindow(window);
+
+        Instant now = Instant.now();
+        analytics.setClicksLast10Min(window.count(now, 10));
+        analytics.setClicksLast1Hour(window.count(now, 60));
+
+        // Metadata of the most recent click
+        AnalyticsEvent event = aggregate.latest;
+        analytics.setCountry(event.getCountry());
+        analytics.setCity(event.getCity());
+        analytics.setRegion(event.getRegion());
+        analytics.setContinent(event.getContinent());
+        analytics.setLatitude(event.getLatitude());
+        analytics.setLongitude(event.getLongitude());
+        analytics.setReferer(event.getReferer());
+        analytics.setUtmSource(event.getUtmSource());
+        analytics.setUtmMedium(event.getUtmMedium());
+        analytics.setUtmCampaign(event.getUtmCampaign());
+        analytics.setUtmTerm(event.getUtmTerm());
+        analytics.setIsBot(event.getIsBot());
+        analytics.setUserAgent(event.getUserAgent());
+        analytics.setLastAccessTime(event.getLastAccessTime());
+    }
+
+    // Redirects only ship the raw User-Agent; events already carrying a classification are left as is
+    private void classifyUserAgent(AnalyticsEvent event) {
+        if (event.getLastAccessTime() == null) {
+            event.setLastAccessTime(Instant.now());
+        }
+        if (event.getBrowser() != null) return;
+
+        UserAgentClassifier.Classification agent = userAgentClassifier.classify(event.getUserAgent());
+        event.setBrowser(agent.browser());
+        event.setOs(agent.os());
+        event.setDeviceType(agent.deviceType());
+        event.setIsBot(agent.bot());
+    }
+
+    // Legacy JSON events may carry a pre-summed count
+    private static int clicksOf(AnalyticsEvent event) {
+        return event.getBrowserVisitCounts() != null && event.getTotalVisitCount() != null ? event.getTotalVisitCount() : 1;
+    }
+
+    private static void mergeMapCount(Map<String, Integer> existing, Map<String, Integer> incoming) {
+        if (incoming == null) return;
+        incoming.forEach((key, value) ->
+                existing.merge(key, value, Integer::sum)
+        );
+    }
+
+    private static void mergeLastSeen(Map<String, Instant> existing, Map<String, Instant> incoming) {
+        if (incoming == null) return;
+        incoming.forEach((key, value) ->
+                existing.merge(key, value, (oldVal, newVal) ->
+                        newVal.isAfter(oldVal) ? newVal : oldVal)
+        );
+    }
+}
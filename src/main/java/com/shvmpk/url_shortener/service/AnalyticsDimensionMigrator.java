@@ -0,0 +1,98 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.config.AnalyticsStorageProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * One-way migration of the Analytics JSON count columns into analytics_dimension, run at startup in
+ * TABLE mode. Each id chunk is one transaction: the JSON counts are added to analytics_dimension and
+ * the columns are cleared, so a restart resumes with what is left and nothing is counted twice.
+ *
+ * The clearing UPDATE bumps the row version, so a consumer holding the old row fails its optimistic
+ * check and re-reads it instead of writing the JSON back.
+ */
+@Slf4j
+@Component
+public class AnalyticsDimensionMigrator implements ApplicationRunner {
+    private static final String PENDING = """
+            (browser_visit_counts IS NOT NULL OR device_type_visit_counts IS NOT NULL OR os_visit_counts IS NOT NULL
+             OR browser_last_seen IS NOT NULL OR device_last_seen IS NOT NULL)""";
+
+    private static final String RANGE_SQL = "SELECT MIN(id), MAX(id) FROM analytics WHERE " + PENDING;
+
+    // dimension, count column, last-seen column (null for OS)
+    private static final String[][] COLUMNS = {
+            {AnalyticsDimensionStore.BROWSER, "browser_visit_counts", "browser_last_seen"},
+            {AnalyticsDimensionStore.DEVICE, "device_type_visit_counts", "device_last_seen"},
+            {AnalyticsDimensionStore.OS, "os_visit_counts", null},
+    };
+
+    private static final String CLEAR_SQL = """
+            UPDATE analytics SET browser_visit_counts = NULL, device_type_visit_counts = NULL, os_visit_counts = NULL,
+                browser_last_seen = NULL, device_last_seen = NULL, version = version + 1
+            WHERE id BETWEEN ? AND ? AND""" + " " + PENDING;
+
+    private final AnalyticsStorageProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public AnalyticsDimensionMigrator(AnalyticsStorageProperties properties,
+                                      JdbcTemplate jdbcTemplate,
+                                      TransactionTemplate transactionTemplate) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (properties.getMode() != AnalyticsStorageProperties.Mode.TABLE || !properties.isMigrateJson()) return;
+
+        try {
+            migrate();
+        } catch (Exception e) {
+            // Not fatal: reads still merge in whatever JSON is left, and the next start retries
+            log.error("Analytics dimension migration stopped", e);
+        }
+    }
+
+    void migrate() {
+        Long[] range = jdbcTemplate.queryForObject(RANGE_SQL,
+                (rs, rowNum) -> new Long[]{(Long) rs.getObject(1), (Long) rs.getObject(2)});
+        if (range == null || range[0] == null) return;
+
+        long migrated = 0;
+        for (long start = range[0]; start <= range[1]; start += properties.getMigrationChunkSize()) {
+            long from = start;
+            long to = start + properties.getMigrationChunkSize() - 1;
+            Integer rows = transactionTemplate.execute(status -> {
+                for (String[] columns : COLUMNS) {
+                    jdbcTemplate.update(insertSql(columns[0], columns[1], columns[2]), from, to);
+                }
+                return jdbcTemplate.update(CLEAR_SQL, from, to);
+            });
+            migrated += rows != null ? rows : 0;
+        }
+        log.info("Moved dimension counts of {} analytics rows into analytics_dimension", migrated);
+    }
+
+    private static String insertSql(String dimension, String countColumn, String lastSeenColumn) {
+        String lastSeen = lastSeenColumn != null
+                ? "(a." + lastSeenColumn + "::jsonb ->> c.key)::timestamptz"
+                : "NULL::timestamptz";
+        return """
+                INSERT INTO analytics_dimension (analytics_id, dimension, dimension_key, visit_count, last_seen)
+                SELECT a.id, '%s', c.key, c.value::bigint, %s
+                FROM analytics a CROSS JOIN LATERAL jsonb_each_text(a.%s::jsonb) c
+                WHERE a.id BETWEEN ? AND ? AND a.%s IS NOT NULL
+                ON CONFLICT (analytics_id, dimension, dimension_key) DO UPDATE
+                SET visit_count = analytics_dimension.visit_count + EXCLUDED.visit_count,
+                    last_seen = GREATEST(analytics_dimension.last_seen, EXCLUDED.last_seen)"""
+                .formatted(dimension, lastSeen, countColumn, countColumn);
+    }
+}
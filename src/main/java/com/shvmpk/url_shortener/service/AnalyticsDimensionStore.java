@@ -0,0 +1,155 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.config.AnalyticsStorageProperties;
+import com.shvmpk.url_shortener.model.Analytics;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/*
+ * analytics_dimension: browser / OS / device type counts of the daily Analytics rows as narrow rows,
+ * used with analytics.storage.mode=table.
+ *
+ * Counts are only ever changed with INSERT ... ON CONFLICT DO UPDATE visit_count = visit_count + ?,
+ * so concurrent writers never lose increments and nothing is read back before a write. Reads fill the
+ * entity's map fields so API responses keep their shape.
+ */
+@Service
+public class AnalyticsDimensionStore {
+    public static final String BROWSER = "browser";
+    public static final String OS = "os";
+    public static final String DEVICE = "device";
+
+    private static final int READ_CHUNK_SIZE = 1_000;
+
+    private static final String INCREMENT_SQL = """
+            INSERT INTO analytics_dimension (analytics_id, dimension, dimension_key, visit_count, last_seen)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (analytics_id, dimension, dimension_key) DO UPDATE
+            SET visit_count = analytics_dimension.visit_count + EXCLUDED.visit_count,
+                last_seen = GREATEST(analytics_dimension.last_seen, EXCLUDED.last_seen)""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AnalyticsStorageProperties properties;
+
+    public AnalyticsDimensionStore(JdbcTemplate jdbcTemplate, AnalyticsStorageProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    public record DimensionKey(long analyticsId, String dimension, String key) {}
+
+    public static final class Increment {
+        long visits;
+        Instant lastSeen;
+
+        public Increment add(long visits, Instant seenAt) {
+            this.visits += visits;
+            if (seenAt != null && (lastSeen == null || seenAt.isAfter(lastSeen))) {
+                lastSeen = seenAt;
+            }
+            return this;
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.getMode() == AnalyticsStorageProperties.Mode.TABLE;
+    }
+
+    // Runs on the caller's connection so it joins the caller's transaction
+    public void increment(Connection connection, Map<DimensionKey, Increment> increments, int batchSize) throws SQLException {
+        if (increments.isEmpty()) return;
+
+        // Fixed order keeps concurrent consumers from deadlocking on each other's row locks
+        List<Map.Entry<DimensionKey, Increment>> sorted = new ArrayList<>(increments.entrySet());
+        sorted.sort(Map.Entry.comparingByKey(Comparator
+                .comparingLong(DimensionKey::analyticsId)
+                .thenComparing(DimensionKey::dimension)
+                .thenComparing(DimensionKey::key)));
+
+        try (PreparedStatement statement = connection.prepareStatement(INCREMENT_SQL)) {
+            int pending = 0;
+            for (Map.Entry<DimensionKey, Increment> entry : sorted) {
+                DimensionKey key = entry.getKey();
+                Increment increment = entry.getValue();
+                statement.setLong(1, key.analyticsId());
+                statement.setString(2, key.dimension());
+                statement.setString(3, key.key());
+                statement.setLong(4, increment.visits);
+                statement.setTimestamp(5, increment.lastSeen != null ? Timestamp.from(increment.lastSeen) : null);
+                statement.addBatch();
+                if (++pending == batchSize) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                statement.executeBatch();
+            }
+        }
+    }
+
+    // Adds the stored dimension counts to the rows' map fields (no-op in JSON mode)
+    public <T extends Collection<Analytics>> T fill(T rows) {
+        if (!isEnabled() || rows.isEmpty()) return rows;
+
+        Map<Long, Analytics> byId = new HashMap<>();
+        rows.forEach(row -> {
+            if (row.getId() != null) byId.put(row.getId(), row);
+        });
+        List<Long> ids = new ArrayList<>(byId.keySet());
+        for (int from = 0; from < ids.size(); from += READ_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + READ_CHUNK_SIZE, ids.size()));
+            String sql = "SELECT analytics_id, dimension, dimension_key, visit_count, last_seen FROM analytics_dimension"
+                    + " WHERE analytics_id IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+            jdbcTemplate.query(sql, rs -> {
+                Analytics row = byId.get(rs.getLong(1));
+                Timestamp lastSeen = rs.getTimestamp(5);
+                apply(row, rs.getString(2), rs.getString(3), (int) Math.min(rs.getLong(4), Integer.MAX_VALUE),
+                        lastSeen != null ? lastSeen.toInstant() : null);
+            }, chunk.toArray());
+        }
+        return rows;
+    }
+
+    private static void apply(Analytics row, String dimension, String key, int visits, Instant lastSeen) {
+        switch (dimension) {
+            case BROWSER -> {
+                mapOf(row, Analytics::getBrowserVisitCounts, row::setBrowserVisitCounts).merge(key, visits, Integer::sum);
+                if (lastSeen != null) {
+                    mapOf(row, Analytics::getBrowserLastSeen, row::setBrowserLastSeen).merge(key, lastSeen, AnalyticsDimensionStore::later);
+                }
+            }
+            case DEVICE -> {
+                mapOf(row, Analytics::getDeviceTypeVisitCounts, row::setDeviceTypeVisitCounts).merge(key, visits, Integer::sum);
+                if (lastSeen != null) {
+                    mapOf(row, Analytics::getDeviceLastSeen, row::setDeviceLastSeen).merge(key, lastSeen, AnalyticsDimensionStore::later);
+                }
+            }
+            case OS -> mapOf(row, Analytics::getOsVisitCounts, row::setOsVisitCounts).merge(key, visits, Integer::sum);
+            default -> { }
+        }
+    }
+
+    private static <V> Map<String, V> mapOf(Analytics row, Function<Analytics, Map<String, V>> getter,
+                                            Consumer<Map<String, V>> setter) {
+        Map<String, V> map = getter.apply(row);
+        if (map == null) {
+            map = new HashMap<>();
+            setter.accept(map);
+        }
+        return map;
+    }
+
+    private static Instant later(Instant a, Instant b) {
+        return b.isAfter(a) ? b : a;
+    }
+}
@@ -0,0 +1,217 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.dto.AnalyticsEvent;
+import com.shvmpk.url_shortener.dto.AnalyticsRangeResponse;
+import com.shvmpk.url_shortener.exception.InvalidAnalyticsQueryException;
+import com.shvmpk.url_shortener.model.AnalyticsRollup.Granularity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.*;
+import java.util.*;
+
+/*
+ * Hourly, daily and monthly click rollups (analytics_rollup) per link, in total and per browser, OS,
+ * device type and country.
+ *
+ * The consumer sums a batch into increments and applies them with INSERT ... ON CONFLICT DO UPDATE
+ * inside its own write transaction, so rollups and daily rows commit (or roll back) together.
+ *
+ * A range query is answered from the fewest rollup rows: whole months from MONTH, the remaining whole
+ * days from DAY and the ragged ends from HOUR. The cost is bounded by buckets in the range, not by
+ * days times JSON parsing.
+ */
+@Service
+public class AnalyticsRollupService {
+    public static final String TOTAL = "total";
+    public static final List<String> DIMENSIONS = List.of("browser", "os", "device", "country");
+
+    // Upper bound on buckets returned in one series
+    static final int MAX_BUCKETS = 2_000;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO analytics_rollup (short_code_id, granularity, bucket_start, dimension, dimension_value, clicks)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (short_code_id, granularity, bucket_start, dimension, dimension_value)
+            DO UPDATE SET clicks = analytics_rollup.clicks + EXCLUDED.clicks""";
+
+    private static final String RANGE_SQL = """
+            SELECT bucket_start, dimension, dimension_value, clicks FROM analytics_rollup
+            WHERE short_code_id = ? AND granularity = ? AND bucket_start >= ? AND bucket_start < ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AnalyticsRollupService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public record RollupKey(long shortCodeId, Granularity granularity, LocalDateTime bucketStart,
+                            String dimension, String value) {}
+
+    // Adds one click (or a legacy event's count) to every granularity and dimension it belongs to
+    public void add(Map<RollupKey, Long> increments, long shortCodeId, AnalyticsEvent event, int clicks) {
+        LocalDateTime at = LocalDateTime.ofInstant(event.getLastAccessTime(), ZoneOffset.UTC);
+        for (Granularity granularity : Granularity.values()) {
+            LocalDateTime bucket = granularity.truncate(at);
+            increments.merge(new RollupKey(shortCodeId, granularity, bucket, TOTAL, ""), (long) clicks, Long::sum);
+            increments.merge(new RollupKey(shortCodeId, granularity, bucket, "browser", valueOf(event.getBrowser())), (long) clicks, Long::sum);
+            increments.merge(new RollupKey(shortCodeId, granularity, bucket, "os", valueOf(event.getOs())), (long) clicks, Long::sum);
+            increments.merge(new RollupKey(shortCodeId, granularity, bucket, "device", valueOf(event.getDeviceType())), (long) clicks, Long::sum);
+            increments.merge(new RollupKey(shortCodeId, granularity, bucket, "country", valueOf(event.getCountry())), (long) clicks, Long::sum);
+        }
+    }
+
+    // Runs on the caller's connection so it joins the caller's transaction
+    public void write(Connection connection, Map<RollupKey, Long> increments, int batchSize) throws SQLException {
+        if (increments.isEmpty()) return;
+
+        // Fixed order keeps concurrent consumers from deadlocking on each other's row locks
+        List<Map.Entry<RollupKey, Long>> sorted = new ArrayList<>(increments.entrySet());
+        sorted.sort(Map.Entry.comparingByKey(Comparator
+                .comparingLong(RollupKey::shortCodeId)
+                .thenComparing(RollupKey::granularity)
+                .thenComparing(RollupKey::bucketStart)
+                .thenComparing(RollupKey::dimension)
+                .thenComparing(RollupKey::value)));
+
+        try (PreparedStatement statement = connection.prepareStatement(UPSERT_SQL)) {
+            int pending = 0;
+            for (Map.Entry<RollupKey, Long> entry : sorted) {
+                RollupKey key = entry.getKey();
+                statement.setLong(1, key.shortCodeId());
+                statement.setString(2, key.granularity().name());
+                statement.setObject(3, key.bucketStart());
+                statement.setString(4, key.dimension());
+                statement.setString(5, key.value());
+                statement.setLong(6, entry.getValue());
+                statement.addBatch();
+                if (++pending == batchSize) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                statement.executeBatch();
+            }
+        }
+    }
+
+    public AnalyticsRangeResponse query(long shortCodeId, String shortCode, Instant from, Instant to, Granularity granularity) {
+        LocalDateTime start = Granularity.HOUR.truncate(LocalDateTime.ofInstant(from, ZoneOffset.UTC));
+        LocalDateTime end = LocalDateTime.ofInstant(to, ZoneOffset.UTC);
+        if (Granularity.HOUR.truncate(end).isBefore(end)) {
+            end = Granularity.HOUR.truncate(end).plusHours(1);
+        }
+        if (!start.isBefore(end)) {
+            throw new InvalidAnalyticsQueryException("'from' must be before 'to'");
+        }
+
+        LocalDateTime seriesStart = granularity.truncate(start);
+        if (countBuckets(granularity, seriesStart, end) > MAX_BUCKETS) {
+            throw new InvalidAnalyticsQueryException(
+                    "Range spans more than " + MAX_BUCKETS + " " + granularity.name().toLowerCase() + " buckets");
+        }
+
+        // Series: whole buckets of the requested granularity that intersect the range
+        Map<LocalDateTime, Totals> series = new TreeMap<>();
+        readRange(shortCodeId, granularity, seriesStart, end, (bucket, dimension, value, clicks) ->
+                series.computeIfAbsent(bucket, b -> new Totals()).add(dimension, value, clicks));
+
+        // Summary: exact hour-aligned range from the smallest covering set of rollups
+        Totals summary = new Totals();
+        for (Cover cover : cover(start, end)) {
+            readRange(shortCodeId, cover.granularity(), cover.from(), cover.to(),
+                    (bucket, dimension, value, clicks) -> summary.add(dimension, value, clicks));
+        }
+
+        List<AnalyticsRangeResponse.Bucket> buckets = new ArrayList<>(series.size());
+        series.forEach((bucket, totals) -> buckets.add(AnalyticsRangeResponse.Bucket.builder()
+                .start(bucket.toInstant(ZoneOffset.UTC))
+                .clicks(totals.clicks)
+                .dimensions(totals.dimensions)
+                .build()));
+
+        return AnalyticsRangeResponse.builder()
+                .shortCode(shortCode)
+                .from(start.toInstant(ZoneOffset.UTC))
+                .to(end.toInstant(ZoneOffset.UTC))
+                .granularity(granularity.name().toLowerCase())
+                .totalClicks(summary.clicks)
+                .dimensions(summary.dimensions)
+                .buckets(buckets)
+                .build();
+    }
+
+    record Cover(Granularity granularity, LocalDateTime from, LocalDateTime to) {}
+
+    // Splits the hour-aligned [start, end) into HOUR / DAY / MONTH ranges, coarsest in the middle
+    static List<Cover> cover(LocalDateTime start, LocalDateTime end) {
+        List<Cover> covers = new ArrayList<>();
+        LocalDateTime dayStart = ceil(Granularity.DAY, start);
+        LocalDateTime dayEnd = Granularity.DAY.truncate(end);
+        if (!dayStart.isBefore(dayEnd)) {
+            covers.add(new Cover(Granularity.HOUR, start, end));
+            return covers;
+        }
+
+        LocalDateTime monthStart = ceil(Granularity.MONTH, dayStart);
+        LocalDateTime monthEnd = Granularity.MONTH.truncate(dayEnd);
+        addIfNotEmpty(covers, Granularity.HOUR, start, dayStart);
+        if (monthStart.isBefore(monthEnd)) {
+            addIfNotEmpty(covers, Granularity.DAY, dayStart, monthStart);
+            covers.add(new Cover(Granularity.MONTH, monthStart, monthEnd));
+            addIfNotEmpty(covers, Granularity.DAY, monthEnd, dayEnd);
+        } else {
+            covers.add(new Cover(Granularity.DAY, dayStart, dayEnd));
+        }
+        addIfNotEmpty(covers, Granularity.HOUR, dayEnd, end);
+        return covers;
+    }
+
+    private static void addIfNotEmpty(List<Cover> covers, Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        if (from.isBefore(to)) covers.add(new Cover(granularity, from, to));
+    }
+
+    private static LocalDateTime ceil(Granularity granularity, LocalDateTime time) {
+        LocalDateTime floor = granularity.truncate(time);
+        return floor.equals(time) ? floor : granularity.next(floor);
+    }
+
+    private static long countBuckets(Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        return switch (granularity) {
+            case HOUR -> Duration.between(from, to).toHours() + 1;
+            case DAY -> Duration.between(from, to).toDays() + 1;
+            case MONTH -> Period.between(from.toLocalDate(), to.toLocalDate()).toTotalMonths() + 1;
+        };
+    }
+
+    private interface RowHandler {
+        void accept(LocalDateTime bucket, String dimension, String value, long clicks);
+    }
+
+    private void readRange(long shortCodeId, Granularity granularity, LocalDateTime from, LocalDateTime to, RowHandler handler) {
+        jdbcTemplate.query(RANGE_SQL, rs -> {
+            handler.accept(rs.getObject(1, LocalDateTime.class), rs.getString(2), rs.getString(3), rs.getLong(4));
+        }, shortCodeId, granularity.name(), from, to);
+    }
+
+    private static final class Totals {
+        long clicks;
+        final Map<String, Map<String, Long>> dimensions = new LinkedHashMap<>();
+
+        void add(String dimension, String value, long count) {
+            if (TOTAL.equals(dimension)) {
+                clicks += count;
+            } else {
+                dimensions.computeIfAbsent(dimension, d -> new TreeMap<>()).merge(value, count, Long::sum);
+            }
+        }
+    }
+
+    private static String valueOf(String dimensionValue) {
+        return dimensionValue != null && !dimensionValue.isBlank() ? dimensionValue : "Unknown";
+    }
+}
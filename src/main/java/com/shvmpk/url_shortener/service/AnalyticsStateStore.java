@@ -0,0 +1,60 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.config.AnalyticsConsumerProperties;
+import com.shvmpk.url_shortener.model.Analytics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Partition-local cache of the daily Analytics rows, so the consumer does not re-read rows it wrote.
+ *
+ * Analytics events are keyed by short code, so every row belongs to exactly one partition and each
+ * partition is consumed by exactly one listener thread: a partition's map is only ever touched by its
+ * owner and needs no locking. A partition's map is dropped whenever ownership may have changed
+ * (assignment, revocation) or a write failed, and rebuilt from the database on demand.
+ */
+@Component
+public class AnalyticsStateStore {
+    public record RowKey(long shortCodeId, LocalDate accessDate) {}
+
+    private final AnalyticsConsumerProperties properties;
+    // partition -> rows owned by it; the outer map only publishes the per-partition maps
+    private final Map<Integer, Map<RowKey, Analytics>> partitions = new ConcurrentHashMap<>();
+
+    public AnalyticsStateStore(AnalyticsConsumerProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        Gauge.builder("analytics.consumer.state.partitions", partitions, Map::size)
+                .description("Partitions with a local analytics state store")
+                .register(meterRegistry);
+    }
+
+    public Analytics get(int partition, RowKey key) {
+        Map<RowKey, Analytics> rows = partitions.get(partition);
+        return rows != null ? rows.get(key) : null;
+    }
+
+    public void put(int partition, RowKey key, Analytics row) {
+        partitions.computeIfAbsent(partition, p -> newPartitionMap()).put(key, row);
+    }
+
+    public void clear(int partition) {
+        partitions.remove(partition);
+    }
+
+    // Access-ordered and bounded: rows of past days age out as the current day's rows are touched
+    private Map<RowKey, Analytics> newPartitionMap() {
+        int maxRows = properties.getStateRowsPerPartition();
+        return new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RowKey, Analytics> eldest) {
+                return size() > maxRows;
+            }
+        };
+    }
+}
@@ -0,0 +1,408 @@
+package com.shvmpk.url_shortener.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shvmpk.url_shortener.config.BatchShortenProperties;
+import com.shvmpk.url_shortener.config.ReachabilityProperties;
+import com.shvmpk.url_shortener.dto.BatchShortenResult;
+import com.shvmpk.url_shortener.dto.CachedShortCode;
+import com.shvmpk.url_shortener.dto.ShortUrlRequest;
+import com.shvmpk.url_shortener.exception.InvalidAliasException;
+import com.shvmpk.url_shortener.exception.InvalidExpirationException;
+import com.shvmpk.url_shortener.exception.InvalidPasswordException;
+import com.shvmpk.url_shortener.exception.InvalidUrlException;
+import com.shvmpk.url_shortener.model.ShortCode;
+import com.shvmpk.url_shortener.model.UrlVersion;
+import com.shvmpk.url_shortener.repository.UrlRepository;
+import com.shvmpk.url_shortener.util.LookupKeys;
+import com.shvmpk.url_shortener.util.PasswordUtil;
+import com.shvmpk.url_shortener.util.ShortUrlGenerator;
+import com.shvmpk.url_shortener.util.UrlUtils;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/*
+ * Bulk variant of UrlService.shortenUrl behind POST /urls/shorten/batch.
+ *
+ * The body (a JSON array or NDJSON) is read incrementally and handled in chunks. Within a chunk,
+ * repeated URLs collapse onto their first occurrence, existing mappings and taken aliases are found
+ * with one set-based query each, short codes are reserved with one generator call, and the new rows
+ * are inserted through a StatelessSession in JDBC batches (sequence ids, so no per-row round trip)
+ * in one transaction. Link records and longUrl:<md5> keys then go to Redis in one pipeline, and one
+ * result line per input item is streamed back in input order before the next chunk is read.
+ *
+ * Reachability SYNC mode behaves like ASYNC here: a blocking check per item would dominate the
+ * request, so only hosts already known to be dead are rejected and new links are verified afterwards.
+ */
+@Slf4j
+@Service
+public class BatchShortenService {
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final int WRITE_BATCH_SIZE = 50;
+    private static final Duration LONG_URL_TTL = Duration.ofDays(1);
+
+    private final UrlService urlService;
+    private final UrlRepository urlRepository;
+    private final ShortUrlGenerator shortUrlGenerator;
+    private final LinkCacheService linkCacheService;
+    private final ReachabilityService reachabilityService;
+    private final ExistenceFilterService existenceFilterService;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final SessionFactory sessionFactory;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final BatchShortenProperties properties;
+
+    public BatchShortenService(UrlService urlService,
+                               UrlRepository urlRepository,
+                               ShortUrlGenerator shortUrlGenerator,
+                               LinkCacheService linkCacheService,
+                               ReachabilityService reachabilityService,
+                               ExistenceFilterService existenceFilterService,
+                               RedisTemplate<String, String> redisTemplate,
+                               EntityManagerFactory entityManagerFactory,
+                               ObjectMapper objectMapper,
+                               Validator validator,
+                               BatchShortenProperties properties) {
+        this.urlService = urlService;
+        this.urlRepository = urlRepository;
+        this.shortUrlGenerator = shortUrlGenerator;
+        this.linkCacheService = linkCacheService;
+        this.reachabilityService = reachabilityService;
+        this.existenceFilterService = existenceFilterService;
+        this.redisTemplate = redisTemplate;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.properties = properties;
+    }
+
+    // Validated and normalized item, ready to insert
+    private record Candidate(int position, String normalizedUrl, String alias, boolean isProtected, Boolean isAuto,
+                             String passwordHash, Integer maxClicks, boolean isClickBased, LocalDateTime expiry) {}
+
+    // Reads ShortUrlRequest items from body and writes one BatchShortenResult line per item to out
+    public void shorten(InputStream body, OutputStream out) throws IOException {
+        // A root-level array is unwrapped; otherwise root-level values (NDJSON) are read one by one
+        try (MappingIterator<ShortUrlRequest> items = objectMapper.readerFor(ShortUrlRequest.class).readValues(body)) {
+            List<ShortUrlRequest> chunk = new ArrayList<>(properties.getChunkSize());
+            int index = 0;
+            while (true) {
+                ShortUrlRequest request;
+                try {
+                    if (!items.hasNextValue()) break;
+                    request = items.nextValue();
+                } catch (IOException e) {
+                    // The parser cannot resynchronize after malformed JSON; report what was read so far
+                    process(chunk, index - chunk.size(), out);
+                    write(out, error(index, "Malformed input: " + e.getMessage()));
+                    return;
+                }
+                if (index >= properties.getMaxItems()) {
+                    process(chunk, index - chunk.size(), out);
+                    write(out, error(index, "Batch limit of " + properties.getMaxItems() + " items exceeded"));
+                    return;
+                }
+                chunk.add(request);
+                index++;
+                if (chunk.size() >= properties.getChunkSize()) {
+                    process(chunk, index - chunk.size(), out);
+                    chunk.clear();
+                }
+            }
+            process(chunk, index - chunk.size(), out);
+        }
+    }
+
+    private void process(List<ShortUrlRequest> chunk, int firstIndex, OutputStream out) throws IOException {
+        if (chunk.isEmpty()) return;
+        BatchShortenResult[] results = new BatchShortenResult[chunk.size()];
+
+        // 1. Validate, normalize and collapse repeated URLs onto their first occurrence
+        Map<String, Candidate> firstByUrl = new LinkedHashMap<>();
+        Map<Integer, Integer> duplicates = new HashMap<>(); // position -> position of the first occurrence
+        for (int i = 0; i < chunk.size(); i++) {
+            try {
+                Candidate candidate = prepare(i, chunk.get(i));
+                Candidate first = firstByUrl.putIfAbsent(candidate.normalizedUrl(), candidate);
+                if (first != null) {
+                    duplicates.put(i, first.position());
+                }
+            } catch (RuntimeException e) {
+                results[i] = error(firstIndex + i, e.getMessage());
+            }
+        }
+
+        // 2. Existing mappings, one query
+        List<CachedShortCode> toCache = new ArrayList<>();
+        Map<String, String> longUrlKeys = new HashMap<>();
+        if (!firstByUrl.isEmpty()) {
+            List<String> hashes = firstByUrl.keySet().stream().map(LookupKeys::urlHash).toList();
+            for (ShortCode found : urlRepository.findByOriginalUrlHashIn(hashes)) {
+                // null for a hash collision, or when several rows share the URL and one was taken already
+                Candidate candidate = firstByUrl.remove(found.getOriginalUrl());
+                if (candidate == null) continue;
+
+                CachedShortCode link = urlService.toCachedLink(found);
+                toCache.add(link);
+                longUrlKeys.put(longUrlKey(candidate.normalizedUrl()), link.shortCode());
+                results[candidate.position()] = result(firstIndex + candidate.position(), BatchShortenResult.Status.EXISTING, link);
+            }
+        }
+
+        // 3. Aliases taken by an earlier item of the chunk or by an existing mapping, one query
+        List<Candidate> toCreate = new ArrayList<>(firstByUrl.size());
+        Set<String> aliases = new HashSet<>();
+        for (Candidate candidate : firstByUrl.values()) {
+            if (candidate.alias() != null && !aliases.add(LookupKeys.alias(candidate.alias()))) {
+                results[candidate.position()] = error(firstIndex + candidate.position(), "Alias already exists");
+            } else {
+                toCreate.add(candidate);
+            }
+        }
+        if (!aliases.isEmpty()) {
+            Set<String> taken = new HashSet<>(urlRepository.findExistingAliasKeys(aliases));
+            toCreate.removeIf(candidate -> {
+                if (candidate.alias() == null || !taken.contains(LookupKeys.alias(candidate.alias()))) return false;
+                results[candidate.position()] = error(firstIndex + candidate.position(), "Alias already exists");
+                return true;
+            });
+        }
+
+        // 4. Insert the new mappings in one transaction
+        List<CachedShortCode> created = new ArrayList<>(toCreate.size());
+        if (!toCreate.isEmpty()) {
+            try {
+                List<ShortCode> mappings = insert(toCreate, shortUrlGenerator.generate(toCreate.size()));
+                for (int i = 0; i < mappings.size(); i++) {
+                    Candidate candidate = toCreate.get(i);
+                    CachedShortCode link = urlService.toCachedLink(mappings.get(i));
+                    created.add(link);
+                    toCache.add(link);
+                    longUrlKeys.put(longUrlKey(candidate.normalizedUrl()), link.shortCode());
+                    results[candidate.position()] = result(firstIndex + candidate.position(), BatchShortenResult.Status.CREATED, link);
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to create {} short URLs in batch", toCreate.size(), e);
+                toCreate.forEach(candidate ->
+                        results[candidate.position()] = error(firstIndex + candidate.position(), "Failed to create short URL"));
+            }
+        }
+
+        // 5. Caches, existence filter (one message to the other nodes) and background reachability checks
+        cache(toCache, longUrlKeys);
+        existenceFilterService.addAll(
+                created.stream().map(CachedShortCode::shortCode).toList(),
+                created.stream().map(CachedShortCode::alias).filter(Objects::nonNull).toList());
+        if (reachabilityService.getMode() != ReachabilityProperties.Mode.OFF) {
+            created.forEach(urlService::verifyReachabilityInBackground);
+        }
+
+        // 6. Repeated URLs share the outcome of their first occurrence
+        duplicates.forEach((position, firstPosition) -> {
+            BatchShortenResult first = results[firstPosition];
+            results[position] = first.getResult() != null
+                    ? BatchShortenResult.builder()
+                        .index(firstIndex + position)
+                        .status(BatchShortenResult.Status.DUPLICATE)
+                        .result(first.getResult())
+                        .build()
+                    : error(firstIndex + position, first.getError());
+        });
+
+        for (BatchShortenResult result : results) {
+            write(out, result);
+        }
+        out.flush();
+    }
+
+    // Mirrors steps 1-7 of UrlService.shortenUrl, reporting failures as exceptions
+    private Candidate prepare(int position, ShortUrlRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Item must be a JSON object");
+        }
+        Set<ConstraintViolation<ShortUrlRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+
+        String inputUrl = request.getLongUrl().trim();
+        if (!UrlUtils.isValid(inputUrl)) {
+            throw new InvalidUrlException("Invalid URL format");
+        }
+        if (reachabilityService.getMode() != ReachabilityProperties.Mode.OFF && reachabilityService.isKnownUnreachable(inputUrl)) {
+            throw new InvalidUrlException("Unreachable URL");
+        }
+        String normalizedUrl = UrlUtils.normalize(inputUrl);
+
+        String alias = request.getAlias();
+        if (alias != null && !alias.isEmpty()) {
+            alias = alias.trim();
+            if (alias.length() > 20) {
+                throw new InvalidAliasException("Alias too long");
+            }
+        } else {
+            alias = null;
+        }
+
+        String passwordHash = null;
+        boolean isProtected = Boolean.TRUE.equals(request.getIsProtected());
+        Boolean isAuto = request.getIsPasswordAutoGenerated();
+        if (isProtected) {
+            if (Boolean.TRUE.equals(isAuto)) {
+                passwordHash = PasswordUtil.hashPassword(PasswordUtil.generateRandomPassword(8));
+            } else {
+                String rawPassword = request.getPassword();
+                if (rawPassword == null || rawPassword.trim().isEmpty()) {
+                    throw new InvalidPasswordException("Password required for protection");
+                }
+                passwordHash = PasswordUtil.hashPassword(rawPassword);
+            }
+        }
+
+        Integer maxClicks = request.getMaxClicks();
+        String expiresAtStr = request.getExpiresAt();
+        boolean isClickBased = maxClicks != null && maxClicks > 0;
+        if (isClickBased && expiresAtStr != null && !expiresAtStr.trim().isEmpty()) {
+            throw new InvalidExpirationException("Choose either click-based or time-based expiration");
+        }
+        LocalDateTime expiry = null;
+        if (!isClickBased) {
+            expiry = (expiresAtStr != null && !expiresAtStr.trim().isEmpty())
+                    ? LocalDateTime.parse(expiresAtStr)
+                    : LocalDateTime.now().plusDays(1);
+        }
+
+        return new Candidate(position, normalizedUrl, alias, isProtected, isAuto, passwordHash, maxClicks, isClickBased, expiry);
+    }
+
+    // Three batched statements: short_code inserts, url_version inserts, current_version_id updates
+    private List<ShortCode> insert(List<Candidate> candidates, List<String> codes) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(WRITE_BATCH_SIZE);
+            Transaction transaction = session.beginTransaction();
+            try {
+                // Set explicitly: a StatelessSession only runs the id generator on insert
+                LocalDateTime now = LocalDateTime.now();
+                List<ShortCode> mappings = new ArrayList<>(candidates.size());
+                for (int i = 0; i < candidates.size(); i++) {
+                    Candidate candidate = candidates.get(i);
+                    ShortCode mapping = ShortCode.builder()
+                            .originalUrl(candidate.normalizedUrl())
+                            .shortCode(codes.get(i))
+                            .alias(candidate.alias())
+                            .expiresAt(candidate.expiry())
+                            .isProtected(candidate.isProtected())
+                            .isPasswordAutoGenerated(candidate.isAuto())
+                            .password(candidate.passwordHash())
+                            .maxClicks(candidate.maxClicks())
+                            .uniqueVisitorCount(0)
+                            .isClickBased(candidate.isClickBased())
+                            .createdAt(now)
+                            .updatedAt(now)
+                            .build();
+                    mapping.updateLookupKeys();
+                    session.insert(mapping);
+                    mappings.add(mapping);
+                }
+
+                List<UrlVersion> versions = new ArrayList<>(mappings.size());
+                for (ShortCode mapping : mappings) {
+                    UrlVersion version = UrlVersion.builder()
+                            .versionNumber(1)
+                            .originalUrl(mapping.getOriginalUrl())
+                            .alias(mapping.getAlias())
+                            .isProtected(mapping.getIsProtected())
+                            .isPasswordAutoGenerated(mapping.getIsPasswordAutoGenerated())
+                            .password(mapping.getPassword())
+                            .maxClicks(mapping.getMaxClicks())
+                            .expiresAt(mapping.getExpiresAt())
+                            .versionCreatedAt(now)
+                            .shortCode(mapping)
+                            .build();
+                    session.insert(version);
+                    versions.add(version);
+                }
+
+                for (int i = 0; i < mappings.size(); i++) {
+                    mappings.get(i).setCurrentVersion(versions.get(i));
+                    session.update(mappings.get(i));
+                }
+                transaction.commit();
+                return mappings;
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+        }
+    }
+
+    // Link records and longUrl:<md5> keys in one pipeline; a Redis failure only costs cache warmth
+    private void cache(List<CachedShortCode> links, Map<String, String> longUrlKeys) {
+        try {
+            linkCacheService.cacheLinks(links);
+            if (longUrlKeys.isEmpty()) return;
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    longUrlKeys.forEach((key, shortCode) -> ops.opsForValue().set(key, shortCode, LONG_URL_TTL));
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Failed to cache {} batch-created links in Redis", links.size(), e);
+        }
+    }
+
+    // Same key as UrlService.shortenUrl
+    private static String longUrlKey(String normalizedUrl) {
+        return "longUrl:" + LookupKeys.urlHash(normalizedUrl);
+    }
+
+    private BatchShortenResult result(int index, BatchShortenResult.Status status, CachedShortCode link) {
+        return BatchShortenResult.builder()
+                .index(index)
+                .status(status)
+                .result(urlService.buildResponseFromEntity(link))
+                .build();
+    }
+
+    private static BatchShortenResult error(int index, String message) {
+        return BatchShortenResult.builder()
+                .index(index)
+                .status(BatchShortenResult.Status.ERROR)
+                .error(message)
+                .build();
+    }
+
+    private void write(OutputStream out, BatchShortenResult result) throws IOException {
+        // writeValueAsBytes rather than writeValue(out, ...), which would close the response stream
+        out.write(objectMapper.writeValueAsBytes(result));
+        out.write('\n');
+    }
+}
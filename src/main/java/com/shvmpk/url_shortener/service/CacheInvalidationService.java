@@ -0,0 +1,157 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.config.CacheInvalidationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Cross-node invalidation bus for ShortCode mutations over Redis pub/sub.
+ *
+ * The mutating node evicts its own L1 entry immediately (RedirectCacheService evicts again on commit)
+ * and queues the code; queued codes are coalesced and published as one message per flush interval. A rollback on node A therefore stops
+ * stale redirects on node B within flush-interval + pub/sub delivery, and the L1 TTL bounds
+ * staleness if a message is ever lost while a subscriber is reconnecting.
+ *
+ * Wire format: nodeId|publishedAtEpochMillis|code1,code2,...
+ */
+@Slf4j
+@Service
+public class CacheInvalidationService implements MessageListener {
+    private final CacheInvalidationProperties properties;
+    private final RedirectCacheService redirectCacheService;
+    private final RedisTemplate<String, String> redisTemplate;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // code -> nanoTime it was first queued; re-queuing a pending code keeps the oldest timestamp
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    private final Timer publishLag;
+    private final Timer applyLag;
+    private final Counter publishedMessages;
+    private final Counter receivedMessages;
+
+    public CacheInvalidationService(CacheInvalidationProperties properties,
+                                    RedirectCacheService redirectCacheService,
+                                    RedisTemplate<String, String> redisTemplate,
+                                    MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.redirectCacheService = redirectCacheService;
+        this.redisTemplate = redisTemplate;
+        this.publishLag = Timer.builder("cache.invalidation.publish.lag")
+                .description("Time from a local mutation until its invalidation is published")
+                .register(meterRegistry);
+        this.applyLag = Timer.builder("cache.invalidation.apply.lag")
+                .description("Time from publish on the origin node until the invalidation is applied here")
+                .register(meterRegistry);
+        this.publishedMessages = Counter.builder("cache.invalidation.messages")
+                .tag("direction", "published")
+                .register(meterRegistry);
+        this.receivedMessages = Counter.builder("cache.invalidation.messages")
+                .tag("direction", "received")
+                .register(meterRegistry);
+    }
+
+    // Evict locally now and queue the codes for every other node
+    public void invalidate(String... canonicalShortCodes) {
+        redirectCacheService.invalidate(canonicalShortCodes);
+        if (!properties.isEnabled()) return;
+
+        // Other nodes must not reload the old row, so only announce once the mutation is committed
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(canonicalShortCodes);
+                }
+            });
+        } else {
+            enqueue(canonicalShortCodes);
+        }
+    }
+
+    private void enqueue(String... canonicalShortCodes) {
+        long now = System.nanoTime();
+        for (String code : canonicalShortCodes) {
+            if (code != null) {
+                pending.putIfAbsent(code.trim(), now);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cache.invalidation.flush-interval:50ms}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        List<String> batch = new ArrayList<>();
+        long oldest = Long.MAX_VALUE;
+        for (String code : pending.keySet()) {
+            Long queuedAt = pending.remove(code);
+            if (queuedAt == null) continue;
+
+            batch.add(code);
+            oldest = Math.min(oldest, queuedAt);
+            if (batch.size() >= properties.getMaxBatchSize()) {
+                publish(batch, oldest);
+                batch = new ArrayList<>();
+                oldest = Long.MAX_VALUE;
+            }
+        }
+        if (!batch.isEmpty()) {
+            publish(batch, oldest);
+        }
+    }
+
+    private void publish(List<String> codes, long oldestQueuedAt) {
+        String message = nodeId + "|" + System.currentTimeMillis() + "|" + String.join(",", codes);
+        try {
+            redisTemplate.convertAndSend(properties.getChannel(), message);
+            publishedMessages.increment();
+            publishLag.record(Duration.ofNanos(System.nanoTime() - oldestQueuedAt));
+        } catch (Exception e) {
+            // Re-queue so the next flush retries; L1 TTL still bounds staleness if Redis stays down
+            log.warn("Failed to publish cache invalidation for {} codes", codes.size(), e);
+            codes.forEach(code -> pending.putIfAbsent(code, oldestQueuedAt));
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 3);
+        if (parts.length != 3) {
+            log.warn("Ignoring malformed cache invalidation message: {}", body);
+            return;
+        }
+        if (nodeId.equals(parts[0])) return; // already applied locally
+
+        receivedMessages.increment();
+        if (!parts[2].isEmpty()) {
+            redirectCacheService.invalidate(parts[2].split(","));
+        }
+
+        try {
+            long lagMillis = System.currentTimeMillis() - Long.parseLong(parts[1]);
+            applyLag.record(Duration.ofMillis(Math.max(lagMillis, 0)));
+        } catch (NumberFormatException e) {
+            log.warn("Invalid publish timestamp in cache invalidation message: {}", body);
+        }
+    }
+}
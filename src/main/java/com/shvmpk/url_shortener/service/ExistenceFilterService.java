@@ -0,0 +1,289 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.config.ExistenceFilterProperties;
+import com.shvmpk.url_shortener.util.LookupKeys;
+import com.shvmpk.url_shortener.util.ScalableBloomFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/*
+ * Existence filter for short codes and alias keys, consulted before a database uniqueness check.
+ * "No" is definite, "maybe" costs the query it would have cost anyway. Until the filter is loaded
+ * every key answers "maybe".
+ *
+ * Startup: load the checkpoint file and catch up on rows updated since it was taken (minus a margin),
+ * or, without a usable checkpoint, rebuild by streaming only short_code / alias_key in fetch-size
+ * pages. Entities are never hydrated.
+ *
+ * Sharing: a node that creates a code adds it locally and publishes it after commit on the
+ * existence-filter channel; the other nodes add it on receipt. The periodic sync re-reads rows updated
+ * since the last sync, so a message lost while a subscriber reconnects is picked up within one
+ * sync interval.
+ *
+ * Wire format: nodeId|key1\nkey2\n... (keys prefixed c: for codes, a: for alias keys)
+ */
+@Slf4j
+@Service
+public class ExistenceFilterService implements MessageListener, ApplicationRunner {
+    private static final String CODE_PREFIX = "c:";
+    private static final String ALIAS_PREFIX = "a:";
+
+    private static final String ALL_KEYS_SQL = "SELECT short_code, alias_key FROM short_code";
+    private static final String UPDATED_KEYS_SQL = ALL_KEYS_SQL + " WHERE updated_at >= ?";
+
+    private final ExistenceFilterProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final NegativeLookupCache negativeLookupCache;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile ScalableBloomFilter filter;
+    private volatile boolean ready;
+    // Start of the last completed load / sync; the next sync reads rows updated after it
+    private volatile LocalDateTime syncedAt;
+
+    public ExistenceFilterService(ExistenceFilterProperties properties,
+                                  JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  RedisTemplate<String, String> redisTemplate,
+                                  NegativeLookupCache negativeLookupCache,
+                                  MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true); // Postgres only streams with a cursor inside a transaction
+        this.redisTemplate = redisTemplate;
+        this.negativeLookupCache = negativeLookupCache;
+        this.filter = newFilter();
+
+        Gauge.builder("existence.filter.keys", this, service -> service.filter.size())
+                .description("Short codes and aliases in the existence filter")
+                .register(meterRegistry);
+        Gauge.builder("existence.filter.layers", this, service -> service.filter.layerCount())
+                .register(meterRegistry);
+        Gauge.builder("existence.filter.expected.fpp", this, service -> service.filter.expectedFpp())
+                .description("Estimated false-positive rate of the existence filter")
+                .register(meterRegistry);
+    }
+
+    private ScalableBloomFilter newFilter() {
+        return new ScalableBloomFilter(properties.getInitialCapacity(), properties.getFpp(),
+                properties.getGrowthFactor(), properties.getTighteningRatio());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean mightContainShortCode(String shortCode) {
+        return !ready || filter.mightContain(CODE_PREFIX + shortCode);
+    }
+
+    public boolean mightContainAlias(String alias) {
+        return !ready || filter.mightContain(ALIAS_PREFIX + LookupKeys.alias(alias));
+    }
+
+    // Record a created code (and its alias, if any) here and, once committed, on every other node
+    public void add(String shortCode, String alias) {
+        List<String> keys = new ArrayList<>(2);
+        keys.add(CODE_PREFIX + shortCode);
+        if (alias != null) {
+            keys.add(ALIAS_PREFIX + LookupKeys.alias(alias));
+        }
+        addAll(keys);
+    }
+
+    // Batch path: one message for the whole chunk
+    public void addAll(Collection<String> shortCodes, Collection<String> aliases) {
+        List<String> keys = new ArrayList<>(shortCodes.size() + aliases.size());
+        shortCodes.forEach(code -> keys.add(CODE_PREFIX + code));
+        aliases.forEach(alias -> keys.add(ALIAS_PREFIX + LookupKeys.alias(alias)));
+        addAll(keys);
+    }
+
+    private void addAll(List<String> keys) {
+        if (keys.isEmpty()) return;
+        ScalableBloomFilter current = filter;
+        keys.forEach(current::put);
+
+        // A lookup before the commit would still miss in the DB and could be remembered as missing
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    keys.forEach(ExistenceFilterService.this::forgetMiss);
+                    publish(keys);
+                }
+            });
+        } else {
+            keys.forEach(this::forgetMiss);
+            publish(keys);
+        }
+    }
+
+    private void publish(List<String> keys) {
+        try {
+            redisTemplate.convertAndSend(properties.getChannel(), nodeId + "|" + String.join("\n", keys));
+        } catch (Exception e) {
+            // Other nodes pick the keys up on their next sync
+            log.warn("Failed to publish {} existence filter keys", keys.size(), e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 2);
+        if (parts.length != 2) {
+            log.warn("Ignoring malformed existence filter message");
+            return;
+        }
+        if (nodeId.equals(parts[0]) || parts[1].isEmpty()) return; // already added locally
+
+        ScalableBloomFilter current = filter;
+        for (String key : parts[1].split("\n")) {
+            current.put(key);
+            forgetMiss(key);
+        }
+    }
+
+    // A key that now exists must not stay in the negative cache
+    private void forgetMiss(String key) {
+        String lookupKey = key.substring(CODE_PREFIX.length());
+        negativeLookupCache.invalidate(key.startsWith(CODE_PREFIX) ? LookupKeys.alias(lookupKey) : lookupKey);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            load();
+        } catch (Exception e) {
+            // Not fatal: the filter stays in "maybe" mode and callers fall back to the database
+            log.error("Failed to load the existence filter", e);
+        }
+    }
+
+    void load() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        Checkpoint checkpoint = readCheckpoint();
+        if (checkpoint != null) {
+            // Keys added since startup are also updated after the checkpoint, so the catch-up covers them
+            filter = checkpoint.filter();
+            long rows = streamKeys(UPDATED_KEYS_SQL, checkpoint.savedAt().minus(properties.getCatchUpMargin()));
+            log.info("Loaded existence filter checkpoint from {} with {} keys, caught up on {} rows",
+                    checkpoint.savedAt(), filter.size(), rows);
+        } else {
+            long rows = streamKeys(ALL_KEYS_SQL, null);
+            log.info("Rebuilt existence filter from {} rows ({} layers)", rows, filter.layerCount());
+        }
+        syncedAt = startedAt;
+        ready = true;
+    }
+
+    @Scheduled(fixedDelayString = "${existence-filter.sync-interval:1m}")
+    public void sync() {
+        if (!ready) return;
+        LocalDateTime startedAt = LocalDateTime.now();
+        try {
+            streamKeys(UPDATED_KEYS_SQL, syncedAt.minus(properties.getCatchUpMargin()));
+            syncedAt = startedAt;
+        } catch (Exception e) {
+            log.warn("Existence filter sync failed, retrying on the next run", e);
+        }
+    }
+
+    // Adds short_code / alias_key of every matching row; since == null reads the whole table
+    private long streamKeys(String sql, LocalDateTime since) {
+        ScalableBloomFilter target = filter;
+        long[] rows = {0};
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(properties.getFetchSize());
+            if (since != null) {
+                statement.setTimestamp(1, Timestamp.valueOf(since));
+            }
+            return statement;
+        }, rs -> {
+            target.put(CODE_PREFIX + rs.getString(1));
+            String aliasKey = rs.getString(2);
+            if (aliasKey != null) {
+                target.put(ALIAS_PREFIX + aliasKey);
+            }
+            rows[0]++;
+        }));
+        return rows[0];
+    }
+
+    @Scheduled(fixedDelayString = "${existence-filter.checkpoint-interval:10m}",
+            initialDelayString = "${existence-filter.checkpoint-interval:10m}")
+    public void scheduledCheckpoint() {
+        checkpoint();
+    }
+
+    @PreDestroy
+    public void checkpoint() {
+        if (!ready || properties.getCheckpointPath().isBlank()) return;
+
+        // Taken before the snapshot, so everything updated later is replayed by the next catch-up
+        LocalDateTime savedAt = LocalDateTime.now();
+        Path path = Path.of(properties.getCheckpointPath());
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeUTF(savedAt.toString());
+                filter.writeTo(out);
+            }
+            // Readers only ever see a complete file
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Wrote existence filter checkpoint with {} keys to {}", filter.size(), path);
+        } catch (IOException e) {
+            log.warn("Failed to write existence filter checkpoint to {}", path, e);
+        }
+    }
+
+    private record Checkpoint(LocalDateTime savedAt, ScalableBloomFilter filter) {}
+
+    private Checkpoint readCheckpoint() {
+        if (properties.getCheckpointPath().isBlank()) return null;
+        Path path = Path.of(properties.getCheckpointPath());
+        if (!Files.isRegularFile(path)) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            LocalDateTime savedAt = LocalDateTime.parse(in.readUTF());
+            return new Checkpoint(savedAt, ScalableBloomFilter.readFrom(in));
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable existence filter checkpoint {}", path, e);
+            return null;
+        }
+    }
+}
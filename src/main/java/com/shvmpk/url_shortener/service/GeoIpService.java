@@ -0,0 +1,187 @@
+package com.shvmpk.url_shortener.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.net.InetAddresses;
+import com.maxmind.db.ClosedDatabaseException;
+import com.maxmind.db.Reader;
+import com.maxmind.geoip2.DatabaseReader;
+import com.maxmind.geoip2.model.CityResponse;
+import com.shvmpk.url_shortener.config.GeoIpProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * GeoIP enrichment for analytics events.
+ *
+ * The City database is memory-mapped (the OS page cache holds it, not the heap) and results are cached
+ * per network prefix. A newer file at the configured location is picked up by a background check: the
+ * new reader is opened first and swapped in atomically, so lookups never pause; a lookup that raced
+ * with the swap retries on the new reader. Until a database exists every lookup is Unknown.
+ */
+@Slf4j
+@Service
+public class GeoIpService {
+    public record GeoLocation(String country, String city, String region, String continent,
+                              Double latitude, Double longitude) {
+        public static final GeoLocation UNKNOWN =
+                new GeoLocation("Unknown", "Unknown", "Unknown", "Unknown", null, null);
+    }
+
+    private record LoadedDatabase(DatabaseReader reader, long lastModified) {}
+
+    private final GeoIpProperties properties;
+    private final AtomicReference<LoadedDatabase> database = new AtomicReference<>();
+    private final Cache<String, GeoLocation> cache;
+
+    private final Timer lookupTimer;
+    private final Counter reloads;
+
+    public GeoIpService(GeoIpProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(properties.getCacheMaximumSize())
+                .expireAfterWrite(properties.getCacheTtl())
+                .recordStats()
+                .build();
+        this.lookupTimer = Timer.builder("analytics.geoip.lookup")
+                .description("GeoIP database lookups (cache misses)")
+                .register(meterRegistry);
+        this.reloads = Counter.builder("analytics.geoip.reloads")
+                .description("GeoIP databases hot-reloaded from disk")
+                .register(meterRegistry);
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "analytics.geoip");
+    }
+
+    @PostConstruct
+    public void init() {
+        reloadIfChanged();
+        if (database.get() == null) {
+            log.warn("GeoIP database not found at {}; locations are Unknown until it appears",
+                    new File(properties.getDatabase()).getAbsolutePath());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        LoadedDatabase current = database.get();
+        if (current != null) {
+            current.reader().close();
+        }
+    }
+
+    public GeoLocation locate(String ip) {
+        InetAddress address;
+        try {
+            // Literal parsing only; never triggers a DNS lookup
+            address = InetAddresses.forString(ip);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return GeoLocation.UNKNOWN;
+        }
+
+        String key = cacheKey(address);
+        GeoLocation cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        GeoLocation location = lookupTimer.record(() -> lookup(address));
+        cache.put(key, location);
+        return location;
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.geoip.reload-check-interval:1m}")
+    public void reloadIfChanged() {
+        File file = new File(properties.getDatabase());
+        LoadedDatabase current = database.get();
+        if (!file.isFile() || (current != null && file.lastModified() == current.lastModified())) return;
+
+        try {
+            LoadedDatabase next = open(file);
+            database.set(next);
+            cache.invalidateAll();
+            if (current != null) {
+                current.reader().close();
+                reloads.increment();
+            }
+            log.info("GeoIP database loaded (memory-mapped): {} (build {})", file.getAbsolutePath(),
+                    next.reader().getMetadata().getBuildDate());
+        } catch (IOException e) {
+            // Keep serving from the current database; the next check retries
+            log.error("Failed to reload GeoIP database from {}", file.getAbsolutePath(), e);
+        }
+    }
+
+    private GeoLocation lookup(InetAddress address) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            LoadedDatabase current = database.get();
+            if (current == null) return GeoLocation.UNKNOWN;
+            try {
+                Optional<CityResponse> response = current.reader().tryCity(address);
+                return response.map(GeoIpService::toLocation).orElse(GeoLocation.UNKNOWN);
+            } catch (ClosedDatabaseException e) {
+                // Swapped out mid-lookup: retry on the new reader
+            } catch (Exception e) {
+                log.debug("GeoIP lookup failed for {}: {}", address.getHostAddress(), e.getMessage());
+                return GeoLocation.UNKNOWN;
+            }
+        }
+        return GeoLocation.UNKNOWN;
+    }
+
+    private static GeoLocation toLocation(CityResponse response) {
+        Double latitude = null, longitude = null;
+        if (response.getLocation() != null) {
+            latitude = response.getLocation().getLatitude();
+            longitude = response.getLocation().getLongitude();
+        }
+        return new GeoLocation(
+                response.getCountry().getName(),
+                response.getCity().getName(),
+                response.getMostSpecificSubdivision().getName(),
+                response.getContinent().getName(),
+                latitude,
+                longitude);
+    }
+
+    // Address masked to the configured prefix length
+    private String cacheKey(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        int prefixLength = address instanceof Inet4Address
+                ? properties.getIpv4PrefixLength()
+                : properties.getIpv6PrefixLength();
+        for (int i = 0; i < bytes.length; i++) {
+            int keep = Math.min(Math.max(prefixLength - i * 8, 0), 8);
+            bytes[i] &= (byte) (0xFF << (8 - keep));
+        }
+        try {
+            return InetAddress.getByAddress(bytes).getHostAddress();
+        } catch (IOException e) {
+            return address.getHostAddress();
+        }
+    }
+
+    private static LoadedDatabase open(File file) throws IOException {
+        long lastModified = file.lastModified();
+        DatabaseReader reader = new DatabaseReader.Builder(file)
+                .fileMode(Reader.FileMode.MEMORY_MAPPED)
+                .locales(List.of("en"))
+                .build();
+        return new LoadedDatabase(reader, lastModified);
+    }
+}
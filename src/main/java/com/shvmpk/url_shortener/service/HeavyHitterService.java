@@ -0,0 +1,128 @@
+package com.shvmpk.url_shortener.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.shvmpk.url_shortener.config.HeavyHitterProperties;
+import com.shvmpk.url_shortener.dto.AnalyticsEvent;
+import com.shvmpk.url_shortener.dto.TopKResponse;
+import com.shvmpk.url_shortener.util.UrlUtils;
+import com.shvmpk.url_shortener.util.WindowedTopK;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/*
+ * Streaming heavy hitters over a sliding window: the most clicked links overall and the top
+ * referrers / countries of each link, in bounded memory (see WindowedTopK).
+ *
+ * Fed from this node's live analytics stream, so every node answers for all traffic. The global top
+ * links are also exported as one gauge per rank, refreshed on a schedule.
+ */
+@Service
+public class HeavyHitterService {
+    public enum Dimension { REFERRER, COUNTRY }
+
+    private final HeavyHitterProperties properties;
+    private final WindowedTopK topLinks;
+
+    // canonical short code -> per-dimension top-K
+    private final Cache<String, WindowedTopK[]> linkDimensions;
+
+    private final MultiGauge topLinksGauge;
+
+    public HeavyHitterService(HeavyHitterProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.topLinks = new WindowedTopK(properties.getWindow().toMillis(), properties.getSlices(),
+                properties.getLinkCapacity(), properties.getSketchWidth(), properties.getSketchDepth());
+        this.linkDimensions = CacheBuilder.newBuilder()
+                .maximumSize(properties.getMaximumLinks())
+                .expireAfterAccess(properties.getLinkIdleTtl())
+                .recordStats()
+                .build();
+        this.topLinksGauge = MultiGauge.builder("analytics.top.links.clicks")
+                .description("Estimated clicks of the most clicked links over the heavy-hitter window")
+                .register(meterRegistry);
+        GuavaCacheMetrics.monitor(meterRegistry, linkDimensions, "analytics.top.link-dimensions");
+    }
+
+    public void record(AnalyticsEvent event) {
+        if (event == null || event.getShortCode() == null) return;
+
+        long now = System.currentTimeMillis();
+        long at = event.getLastAccessTime() != null ? event.getLastAccessTime().toEpochMilli() : now;
+        String code = event.getShortCode().trim();
+
+        topLinks.add(code, 1, at, now);
+        WindowedTopK[] dimensions = dimensions(code);
+        dimensions[Dimension.REFERRER.ordinal()].add(UrlUtils.referrerHost(event.getReferer()), 1, at, now);
+        dimensions[Dimension.COUNTRY.ordinal()].add(countryOf(event), 1, at, now);
+    }
+
+    public TopKResponse topLinks(int limit, Duration window) {
+        return response("links", "link", topLinks, limit, window);
+    }
+
+    public TopKResponse topForLink(String canonicalShortCode, Dimension dimension, int limit, Duration window) {
+        String code = canonicalShortCode.trim();
+        return response(code, dimension.name().toLowerCase(), dimensions(code)[dimension.ordinal()], limit, window);
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.heavy-hitters.gauge-refresh:15s}")
+    public void refreshGauges() {
+        List<WindowedTopK.Entry> top = topLinks.top(properties.getGaugeTopN(), topLinks.windowMillis(), System.currentTimeMillis());
+        List<MultiGauge.Row<?>> rows = new ArrayList<>(top.size());
+        for (int rank = 0; rank < top.size(); rank++) {
+            WindowedTopK.Entry entry = top.get(rank);
+            rows.add(MultiGauge.Row.of(Tags.of("rank", Integer.toString(rank + 1), "short_code", entry.key()), entry.count()));
+        }
+        // overwrite: links that dropped out of the top N are removed from the registry
+        topLinksGauge.register(rows, true);
+    }
+
+    private TopKResponse response(String scope, String dimension, WindowedTopK topK, int limit, Duration window) {
+        long now = System.currentTimeMillis();
+        long windowMillis = Math.min(window.toMillis(), topK.windowMillis());
+        List<TopKResponse.Item> items = topK.top(limit, windowMillis, now).stream()
+                .map(entry -> TopKResponse.Item.builder()
+                        .key(entry.key())
+                        .clicks(entry.count())
+                        .maxError(entry.maxError())
+                        .build())
+                .toList();
+        return TopKResponse.builder()
+                .scope(scope)
+                .dimension(dimension)
+                .at(Instant.ofEpochMilli(now))
+                .windowSeconds(windowMillis / 1000)
+                .items(items)
+                .build();
+    }
+
+    private WindowedTopK[] dimensions(String code) {
+        try {
+            return linkDimensions.get(code, () -> {
+                WindowedTopK[] dimensions = new WindowedTopK[Dimension.values().length];
+                for (int i = 0; i < dimensions.length; i++) {
+                    dimensions[i] = new WindowedTopK(properties.getWindow().toMillis(), properties.getSlices(),
+                            properties.getDimensionCapacity(), 0, 0);
+                }
+                return dimensions;
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static String countryOf(AnalyticsEvent event) {
+        return event.getCountry() != null && !event.getCountry().isBlank() ? event.getCountry() : "Unknown";
+    }
+}
@@ -0,0 +1,202 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.config.VisitorTrackingProperties;
+import com.shvmpk.url_shortener.dto.CachedShortCode;
+import com.shvmpk.url_shortener.util.CachedShortCodeCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Redis tier of the redirect path: link records (link:<code>) and unique-visitor tracking.
+ *
+ * Visitors are counted exactly in a SET (visitors:<code>) or approximately in a HyperLogLog
+ * (visitors-hll:<code>, at most ~12 KB per link, standard error 0.81%). Click-limited links always
+ * use the SET so every limit is enforced exactly; it never grows past maxClicks members.
+ *
+ * Click-limited links additionally keep a reservation counter (clicks:<code>) that the redirect
+ * script checks and increments atomically; it is the authority for maxClicks and is reconciled
+ * into Postgres through the write-behind VisitorCounterService.
+ */
+@Slf4j
+@Service
+public class LinkCacheService {
+    public static final double HLL_STANDARD_ERROR = 0.0081;
+
+    private static final Duration LINK_TTL = Duration.ofDays(1);
+    private static final Duration VISITOR_TTL = Duration.ofDays(30);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final VisitorTrackingProperties visitorProperties;
+    private final RedisScript<List> redirectScript;
+
+    public LinkCacheService(RedisTemplate<String, String> redisTemplate, VisitorTrackingProperties visitorProperties) {
+        this.redisTemplate = redisTemplate;
+        this.visitorProperties = visitorProperties;
+        this.redirectScript = RedisScript.of(new ClassPathResource("scripts/redirect.lua"), List.class);
+    }
+
+    public enum VisitStatus { NOT_CACHED, OK, EXPIRED, CLICK_LIMIT_REACHED, DISABLED }
+
+    /*
+     * changed: exact mode - the visitor is new; approximate mode - the HyperLogLog changed and
+     * visitorCount holds the new estimate. visitorCount is -1 when unknown.
+     * link is only populated when it was requested (fetchLink) and the record is cached.
+     */
+    public record Visit(VisitStatus status, boolean changed, long visitorCount, boolean approximate, CachedShortCode link) {}
+
+    public record VisitorCount(long count, boolean approximate) {}
+
+    public CachedShortCode getLink(String shortCode) {
+        try {
+            return CachedShortCodeCodec.fromHash(redisTemplate.opsForHash().entries(linkKey(shortCode)));
+        } catch (Exception e) {
+            log.warn("Failed to read cached link from Redis: {}", shortCode, e);
+            return null;
+        }
+    }
+
+    public void cacheLink(CachedShortCode link) {
+        String key = linkKey(link.shortCode());
+        Map<String, String> hash = CachedShortCodeCodec.toHash(link);
+        // DEL + HSET + EXPIRE in one round trip
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.delete(key);
+                ops.opsForHash().putAll(key, hash);
+                ops.expire(key, LINK_TTL);
+                return null;
+            }
+        });
+    }
+
+    // Bulk variant of cacheLink: every record in a single pipeline
+    public void cacheLinks(Collection<CachedShortCode> links) {
+        if (links.isEmpty()) return;
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (CachedShortCode link : links) {
+                    String key = linkKey(link.shortCode());
+                    ops.delete(key);
+                    ops.opsForHash().putAll(key, CachedShortCodeCodec.toHash(link));
+                    ops.expire(key, LINK_TTL);
+                }
+                return null;
+            }
+        });
+    }
+
+    // Shared by every node, so inside a transaction it is only deleted once the change is committed: a
+    // redirect in between would otherwise re-cache the old row for LINK_TTL
+    public void evictLink(String shortCode) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    redisTemplate.delete(linkKey(shortCode));
+                }
+            });
+        } else {
+            redisTemplate.delete(linkKey(shortCode));
+        }
+    }
+
+    public void evictVisitors(String shortCode) {
+        redisTemplate.delete(List.of(visitorsKey(shortCode), visitorsHllKey(shortCode), clicksKey(shortCode)));
+    }
+
+    public VisitorCount countVisitors(String shortCode, Integer maxClicks) {
+        if (isApproximate(maxClicks)) {
+            Long count = redisTemplate.opsForHyperLogLog().size(visitorsHllKey(shortCode));
+            return new VisitorCount(count != null ? count : 0, true);
+        }
+        Long count = redisTemplate.opsForSet().size(visitorsKey(shortCode));
+        return new VisitorCount(count != null ? count : 0, false);
+    }
+
+    // Same rule as scripts/redirect.lua
+    private boolean isApproximate(Integer maxClicks) {
+        if (visitorProperties.getMode() != VisitorTrackingProperties.Mode.HLL) return false;
+        return maxClicks == null;
+    }
+
+    /*
+     * Checks expiry and click limit against the cached record and records the visitor, atomically and in
+     * one round trip. With fetchLink the record is required and returned; without it (L1 hit) a missing
+     * record only skips the checks.
+     */
+    public Visit recordVisit(String shortCode, String visitorSignature, boolean fetchLink) {
+        List<?> reply;
+        try {
+            reply = redisTemplate.execute(
+                    redirectScript,
+                    List.of(linkKey(shortCode), visitorsKey(shortCode), visitorsHllKey(shortCode), clicksKey(shortCode)),
+                    visitorSignature,
+                    Long.toString(System.currentTimeMillis()),
+                    Long.toString(VISITOR_TTL.toSeconds()),
+                    fetchLink ? "1" : "0",
+                    visitorProperties.getMode() == VisitorTrackingProperties.Mode.HLL ? "hll" : "set"
+            );
+        } catch (Exception e) {
+            // Redis down: resolve from the DB and skip unique-visitor counting rather than failing the redirect
+            log.error("Redis error on redirect script for {}: {}", shortCode, e.getMessage());
+            return new Visit(fetchLink ? VisitStatus.NOT_CACHED : VisitStatus.OK, false, -1, false, null);
+        }
+        if (reply == null || reply.size() < 4) {
+            return new Visit(VisitStatus.NOT_CACHED, false, -1, false, null);
+        }
+
+        VisitStatus status = VisitStatus.values()[((Number) reply.get(0)).intValue()];
+        boolean changed = ((Number) reply.get(1)).intValue() == 1;
+        long visitorCount = ((Number) reply.get(2)).longValue();
+        boolean approximate = ((Number) reply.get(3)).intValue() == 1;
+
+        CachedShortCode link = null;
+        if (fetchLink && reply.size() > 4) {
+            Map<String, String> hash = new HashMap<>();
+            for (int i = 4; i + 1 < reply.size(); i += 2) {
+                hash.put((String) reply.get(i), (String) reply.get(i + 1));
+            }
+            link = CachedShortCodeCodec.fromHash(hash);
+            if (link == null) {
+                // Unknown layout version: treat like a cold link so it gets rewritten from the DB
+                return new Visit(VisitStatus.NOT_CACHED, false, -1, false, null);
+            }
+        }
+        return new Visit(status, changed, visitorCount, approximate, link);
+    }
+
+    private static String linkKey(String shortCode) {
+        return "link:" + shortCode.trim();
+    }
+
+    private static String visitorsKey(String shortCode) {
+        return "visitors:" + shortCode.trim();
+    }
+
+    private static String visitorsHllKey(String shortCode) {
+        return "visitors-hll:" + shortCode.trim();
+    }
+
+    private static String clicksKey(String shortCode) {
+        return "clicks:" + shortCode.trim();
+    }
+}
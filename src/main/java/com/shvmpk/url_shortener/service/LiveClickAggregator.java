@@ -0,0 +1,149 @@
+package com.shvmpk.url_shortener.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.shvmpk.url_shortener.config.LiveAnalyticsProperties;
+import com.shvmpk.url_shortener.dto.AnalyticsEvent;
+import com.shvmpk.url_shortener.dto.LiveClickStats;
+import com.shvmpk.url_shortener.util.UrlUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+/*
+ * In-memory rolling click aggregates per link for the live analytics stream.
+ *
+ * Fed by LiveAnalyticsConsumer (this node's own consumer group, so every node sees every click) and
+ * read by LiveClickBroadcaster; nothing here touches Postgres. Each link keeps a ring of time slices
+ * (window / buckets wide) with a click count and country / referrer counts, reset lazily when the
+ * ring wraps, so memory per link is bounded by the window and not by traffic.
+ */
+@Service
+public class LiveClickAggregator {
+    private static final long RATE_WINDOW_MILLIS = 60_000;
+
+    private final LiveAnalyticsProperties properties;
+    private final long bucketMillis;
+
+    // canonical short code -> rolling window
+    private final Cache<String, LinkWindow> windows;
+
+    public LiveClickAggregator(LiveAnalyticsProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.bucketMillis = Math.max(1, properties.getWindow().toMillis() / properties.getBuckets());
+        this.windows = CacheBuilder.newBuilder()
+                .maximumSize(properties.getMaximumLinks())
+                .expireAfterAccess(properties.getLinkIdleTtl())
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, windows, "analytics.live.links");
+    }
+
+    public void record(AnalyticsEvent event) {
+        if (event == null || event.getShortCode() == null) return;
+
+        long at = event.getLastAccessTime() != null ? event.getLastAccessTime().toEpochMilli() : System.currentTimeMillis();
+        window(event.getShortCode()).record(at, countryOf(event), UrlUtils.referrerHost(event.getReferer()));
+    }
+
+    public LiveClickStats snapshot(String shortCode) {
+        return snapshot(shortCode, Instant.now());
+    }
+
+    LiveClickStats snapshot(String shortCode, Instant now) {
+        return window(shortCode).snapshot(shortCode, now);
+    }
+
+    private LinkWindow window(String shortCode) {
+        try {
+            return windows.get(shortCode.trim(), () -> new LinkWindow(properties.getBuckets()));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static String countryOf(AnalyticsEvent event) {
+        return event.getCountry() != null && !event.getCountry().isBlank() ? event.getCountry() : "Unknown";
+    }
+
+    // Written by the live consumer thread, read by the broadcaster; guarded by its own monitor
+    private final class LinkWindow {
+        private final long[] slices;
+        private final int[] clicks;
+        private final Map<String, Integer>[] countries;
+        private final Map<String, Integer>[] referrers;
+
+        @SuppressWarnings("unchecked")
+        LinkWindow(int buckets) {
+            slices = new long[buckets];
+            Arrays.fill(slices, Long.MIN_VALUE);
+            clicks = new int[buckets];
+            countries = new Map[buckets];
+            referrers = new Map[buckets];
+            for (int i = 0; i < buckets; i++) {
+                countries[i] = new HashMap<>();
+                referrers[i] = new HashMap<>();
+            }
+        }
+
+        synchronized void record(long atMillis, String country, String referrer) {
+            long slice = Math.floorDiv(atMillis, bucketMillis);
+            long newest = Math.floorDiv(System.currentTimeMillis(), bucketMillis);
+            if (slice <= newest - slices.length) return; // older than the window
+
+            int index = (int) Math.floorMod(slice, slices.length);
+            if (slices[index] != slice) {
+                slices[index] = slice;
+                clicks[index] = 0;
+                countries[index].clear();
+                referrers[index].clear();
+            }
+            clicks[index]++;
+            countries[index].merge(country, 1, Integer::sum);
+            referrers[index].merge(referrer, 1, Integer::sum);
+        }
+
+        synchronized LiveClickStats snapshot(String shortCode, Instant now) {
+            long nowMillis = now.toEpochMilli();
+            long newest = Math.floorDiv(nowMillis, bucketMillis);
+            long oldest = newest - slices.length + 1;
+            long rateOldest = Math.floorDiv(nowMillis - RATE_WINDOW_MILLIS, bucketMillis) + 1;
+
+            int inWindow = 0;
+            int lastMinute = 0;
+            Map<String, Integer> countryTotals = new HashMap<>();
+            Map<String, Integer> referrerTotals = new HashMap<>();
+            for (int i = 0; i < slices.length; i++) {
+                if (slices[i] < oldest || slices[i] > newest) continue;
+                inWindow += clicks[i];
+                if (slices[i] >= rateOldest) lastMinute += clicks[i];
+                countries[i].forEach((key, count) -> countryTotals.merge(key, count, Integer::sum));
+                referrers[i].forEach((key, count) -> referrerTotals.merge(key, count, Integer::sum));
+            }
+
+            return LiveClickStats.builder()
+                    .shortCode(shortCode)
+                    .at(now)
+                    .clicksPerSecond(lastMinute / (RATE_WINDOW_MILLIS / 1000.0))
+                    .clicksLastMinute(lastMinute)
+                    .clicksInWindow(inWindow)
+                    .windowSeconds(slices.length * bucketMillis / 1000)
+                    .topCountries(top(countryTotals))
+                    .topReferrers(top(referrerTotals))
+                    .build();
+        }
+    }
+
+    private Map<String, Integer> top(Map<String, Integer> totals) {
+        Map<String, Integer> top = new LinkedHashMap<>();
+        totals.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(properties.getTopN())
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+}
@@ -0,0 +1,119 @@
+package com.shvmpk.url_shortener.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shvmpk.url_shortener.config.LiveAnalyticsProperties;
+import com.shvmpk.url_shortener.dto.LiveClickStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/*
+ * Server-Sent Events fan-out of LiveClickAggregator snapshots.
+ *
+ * Each push interval, every link with at least one subscriber is snapshotted and serialized once;
+ * the same event is then written to all of that link's emitters on the task executor, so the cost
+ * per tick grows with watched links, not with dashboards, and a slow client does not hold up the
+ * scheduler.
+ */
+@Slf4j
+@Service
+public class LiveClickBroadcaster {
+    private static final String EVENT_NAME = "clicks";
+
+    private final LiveClickAggregator aggregator;
+    private final LiveAnalyticsProperties properties;
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor sendExecutor;
+
+    // canonical short code -> open streams
+    private final Map<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    public LiveClickBroadcaster(LiveClickAggregator aggregator,
+                                LiveAnalyticsProperties properties,
+                                ObjectMapper objectMapper,
+                                @Qualifier("applicationTaskExecutor") TaskExecutor sendExecutor,
+                                MeterRegistry meterRegistry) {
+        this.aggregator = aggregator;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.sendExecutor = sendExecutor;
+        Gauge.builder("analytics.live.subscribers", () -> subscribers.values().stream().mapToInt(Set::size).sum())
+                .description("Open live analytics streams")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(String canonicalShortCode) {
+        String code = canonicalShortCode.trim();
+        SseEmitter emitter = new SseEmitter(properties.getEmitterTimeout().toMillis());
+        // Added under the map entry's lock, so unsubscribe cannot drop the set between lookup and add
+        subscribers.compute(code, (c, emitters) -> {
+            Set<SseEmitter> set = emitters != null ? emitters : new CopyOnWriteArraySet<>();
+            set.add(emitter);
+            return set;
+        });
+        emitter.onCompletion(() -> unsubscribe(code, emitter));
+        emitter.onTimeout(() -> unsubscribe(code, emitter));
+        emitter.onError(e -> unsubscribe(code, emitter));
+
+        // First frame right away instead of after the next tick
+        Set<ResponseBodyEmitter.DataWithMediaType> event = toEvent(aggregator.snapshot(canonicalShortCode));
+        if (event != null) send(code, emitter, event);
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.live.push-interval:1s}")
+    public void push() {
+        subscribers.forEach((code, emitters) -> {
+            if (emitters.isEmpty()) return;
+
+            Set<ResponseBodyEmitter.DataWithMediaType> event = toEvent(aggregator.snapshot(code));
+            if (event == null) return;
+            try {
+                sendExecutor.execute(() -> emitters.forEach(emitter -> send(code, emitter, event)));
+            } catch (TaskRejectedException e) {
+                // Executor saturated: skip this frame, the next tick sends a fresh snapshot
+                log.debug("Skipped live analytics push for {}: executor saturated", code);
+            }
+        });
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> toEvent(LiveClickStats stats) {
+        try {
+            String json = objectMapper.writeValueAsString(stats);
+            return SseEmitter.event().name(EVENT_NAME).data(json, MediaType.APPLICATION_JSON).build();
+        } catch (Exception e) {
+            log.error("Failed to serialize live stats for {}", stats.getShortCode(), e);
+            return null;
+        }
+    }
+
+    private void send(String code, SseEmitter emitter, Set<ResponseBodyEmitter.DataWithMediaType> event) {
+        try {
+            emitter.send(event);
+        } catch (Exception e) {
+            // Client went away; completing triggers the cleanup callbacks
+            unsubscribe(code, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void unsubscribe(String code, SseEmitter emitter) {
+        subscribers.computeIfPresent(code, (c, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
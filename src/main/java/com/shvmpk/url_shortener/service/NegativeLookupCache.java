@@ -0,0 +1,65 @@
+package com.shvmpk.url_shortener.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.shvmpk.url_shortener.config.RedirectCacheProperties;
+import com.shvmpk.url_shortener.util.LookupKeys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Short-lived memory of inputs the database confirmed match neither a short code nor an alias. It
+ * answers the misses the existence filter cannot: its false positives, and every input while the
+ * filter is still loading.
+ *
+ * Entries are grouped by the lower-case lookup key, so a new code or alias clears all case variants
+ * of it with one invalidation (ExistenceFilterService calls invalidate for every key it adds, local
+ * or received from another node). A miss is only recorded if no invalidation ran since the lookup
+ * started, so a code created during the lookup is never remembered as missing.
+ */
+@Service
+public class NegativeLookupCache {
+    // LookupKeys.alias(input) -> exact inputs (short code spelling) known to be missing
+    private final Cache<String, Set<String>> misses;
+    private final AtomicLong generation = new AtomicLong();
+
+    public NegativeLookupCache(RedirectCacheProperties properties, MeterRegistry meterRegistry) {
+        this.misses = CacheBuilder.newBuilder()
+                .maximumSize(properties.getNegativeMaximumSize())
+                .expireAfterWrite(properties.getNegativeTtl())
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, misses, "redirect.negative");
+    }
+
+    public boolean isKnownMissing(String code) {
+        Set<String> inputs = misses.getIfPresent(LookupKeys.alias(code));
+        return inputs != null && inputs.contains(code);
+    }
+
+    // Read before the lookup and pass to recordMissing
+    public long generation() {
+        return generation.get();
+    }
+
+    public void recordMissing(String code, long lookupGeneration) {
+        if (generation.get() != lookupGeneration) return;
+        Set<String> inputs = misses.asMap().computeIfAbsent(LookupKeys.alias(code), key -> ConcurrentHashMap.newKeySet());
+        inputs.add(code);
+        // An invalidation that ran between the check and the add may have missed this entry
+        if (generation.get() != lookupGeneration) {
+            inputs.remove(code);
+        }
+    }
+
+    // lookupKey: LookupKeys.alias of a short code or alias that now exists
+    public void invalidate(String lookupKey) {
+        generation.incrementAndGet();
+        misses.invalidate(lookupKey);
+    }
+}
@@ -0,0 +1,175 @@
+package com.shvmpk.url_shortener.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.shvmpk.url_shortener.config.ReachabilityProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Destination reachability for shortened URLs.
+ *
+ * One shared non-blocking HttpClient sends a HEAD request; results are cached per host
+ * (scheme://host:port) with separate TTLs for reachable and unreachable hosts, and concurrent checks
+ * against the same host share a single probe. A host is reachable when it answers with any status
+ * below 500 - the check is about the destination being alive, and a per-host result cannot judge
+ * individual paths.
+ */
+@Slf4j
+@Service
+public class ReachabilityService {
+    private static final String USER_AGENT = "url-shortener-reachability/1.0";
+
+    private final ReachabilityProperties properties;
+    private final HttpClient httpClient;
+
+    private final Cache<String, Boolean> reachableHosts;
+    private final Cache<String, Boolean> unreachableHosts;
+    // host -> probe in flight
+    private final Map<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+
+    private final Timer reachableProbes;
+    private final Timer unreachableProbes;
+    private final Counter cacheHits;
+
+    public ReachabilityService(ReachabilityProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(properties.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        this.reachableHosts = CacheBuilder.newBuilder()
+                .maximumSize(properties.getMaximumHosts())
+                .expireAfterWrite(properties.getReachableTtl())
+                .recordStats()
+                .build();
+        this.unreachableHosts = CacheBuilder.newBuilder()
+                .maximumSize(properties.getMaximumHosts())
+                .expireAfterWrite(properties.getUnreachableTtl())
+                .recordStats()
+                .build();
+        this.reachableProbes = Timer.builder("reachability.probe")
+                .tag("result", "reachable")
+                .register(meterRegistry);
+        this.unreachableProbes = Timer.builder("reachability.probe")
+                .tag("result", "unreachable")
+                .register(meterRegistry);
+        this.cacheHits = Counter.builder("reachability.cache.hits")
+                .description("Reachability checks answered from the per-host cache")
+                .register(meterRegistry);
+        GuavaCacheMetrics.monitor(meterRegistry, reachableHosts, "reachability.hosts.reachable");
+        GuavaCacheMetrics.monitor(meterRegistry, unreachableHosts, "reachability.hosts.unreachable");
+    }
+
+    public ReachabilityProperties.Mode getMode() {
+        return properties.getMode();
+    }
+
+    // Completes with false instead of failing; never blocks the caller
+    public CompletableFuture<Boolean> checkAsync(String url) {
+        URI uri = toUri(url);
+        String host = uri != null ? hostKey(uri) : null;
+        if (host == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        Boolean cached = cachedResult(host);
+        if (cached != null) {
+            cacheHits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = inFlight.putIfAbsent(host, result);
+        if (existing != null) {
+            return existing;
+        }
+
+        long start = System.nanoTime();
+        probe(uri).whenComplete((reachable, e) -> {
+            boolean ok = e == null && Boolean.TRUE.equals(reachable);
+            (ok ? reachableProbes : unreachableProbes).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            // Publish to the cache before leaving inFlight so no caller starts a second probe
+            (ok ? reachableHosts : unreachableHosts).put(host, Boolean.TRUE);
+            (ok ? unreachableHosts : reachableHosts).invalidate(host);
+            inFlight.remove(host, result);
+            result.complete(ok);
+        });
+        return result;
+    }
+
+    // Blocks for at most connect + request timeout on a cache miss
+    public boolean isReachable(String url) {
+        return checkAsync(url).join();
+    }
+
+    // Cache-only answer: true when the host failed a recent probe
+    public boolean isKnownUnreachable(String url) {
+        URI uri = toUri(url);
+        String host = uri != null ? hostKey(uri) : null;
+        return host == null || unreachableHosts.getIfPresent(host) != null;
+    }
+
+    private Boolean cachedResult(String host) {
+        if (unreachableHosts.getIfPresent(host) != null) return false;
+        if (reachableHosts.getIfPresent(host) != null) return true;
+        return null;
+    }
+
+    private CompletableFuture<Boolean> probe(URI uri) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .timeout(properties.getRequestTimeout())
+                .header("User-Agent", USER_AGENT)
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> response.statusCode() < 500)
+                .exceptionally(e -> {
+                    log.debug("Reachability probe failed for {}: {}", uri.getHost(), e.toString());
+                    return false;
+                })
+                // The request timeout does not cover DNS resolution and connection setup
+                .completeOnTimeout(false,
+                        properties.getConnectTimeout().plus(properties.getRequestTimeout()).toMillis(),
+                        TimeUnit.MILLISECONDS);
+    }
+
+    // URLs that passed java.net.URL validation but are not valid URIs (unencoded characters) probe the host root
+    private static URI toUri(String url) {
+        try {
+            URL parsed = new URL(url.trim());
+            try {
+                return parsed.toURI();
+            } catch (Exception e) {
+                return new URI(parsed.getProtocol(), null, parsed.getHost(), parsed.getPort(), "/", null, null);
+            }
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String hostKey(URI uri) {
+        String scheme = uri.getScheme();
+        String host = uri.getHost();
+        if (scheme == null || host == null) return null;
+        scheme = scheme.toLowerCase();
+        if (!scheme.equals("http") && !scheme.equals("https")) return null;
+
+        int port = uri.getPort() != -1 ? uri.getPort() : (scheme.equals("https") ? 443 : 80);
+        return scheme + "://" + host.toLowerCase() + ":" + port;
+    }
+}
@@ -0,0 +1,84 @@
+package com.shvmpk.url_shortener.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.shvmpk.url_shortener.config.RedirectCacheProperties;
+import com.shvmpk.url_shortener.dto.CachedShortCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+// In-process L1 cache of resolved redirect targets, keyed by canonical short code
+@Service
+public class RedirectCacheService {
+    private final RedirectCacheProperties properties;
+    private final Cache<String, CachedShortCode> cache;
+    private final Counter expiredCounter;
+
+    public RedirectCacheService(RedirectCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        this.expiredCounter = Counter.builder("redirect.l1.expired")
+                .description("L1 entries dropped on read because the link itself expired")
+                .register(meterRegistry);
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "redirect.l1");
+    }
+
+    public Optional<CachedShortCode> get(String canonicalShortCode) {
+        if (!properties.isEnabled()) return Optional.empty();
+
+        String key = key(canonicalShortCode);
+        CachedShortCode cached = cache.getIfPresent(key);
+        if (cached != null && cached.isExpired(LocalDateTime.now())) {
+            // The link outlived its expiresAt while cached: drop it and let the caller handle expiry
+            cache.invalidate(key);
+            expiredCounter.increment();
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cached);
+    }
+
+    public void put(CachedShortCode link) {
+        if (!properties.isEnabled()) return;
+
+        // Click-limited links change on every unique visit, so they are always read from the shared tiers
+        if (link.isClickLimited() || link.isDisabled() || link.isExpired(LocalDateTime.now())) return;
+        cache.put(key(link.shortCode()), link);
+    }
+
+    public void invalidate(String... canonicalShortCodes) {
+        for (String code : canonicalShortCodes) {
+            if (code != null) {
+                cache.invalidate(key(code));
+            }
+        }
+
+        // A concurrent redirect may reload the old row before the mutation commits, so evict again afterwards
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    for (String code : canonicalShortCodes) {
+                        if (code != null) {
+                            cache.invalidate(key(code));
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    private String key(String canonicalShortCode) {
+        return canonicalShortCode.trim();
+    }
+}
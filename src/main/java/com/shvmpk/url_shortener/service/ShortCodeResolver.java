@@ -0,0 +1,173 @@
+package com.shvmpk.url_shortener.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.shvmpk.url_shortener.config.RedirectCacheProperties;
+import com.shvmpk.url_shortener.dto.CachedShortCode;
+import com.shvmpk.url_shortener.model.ShortCode;
+import com.shvmpk.url_shortener.repository.UrlRepository;
+import com.shvmpk.url_shortener.util.LookupKeys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/*
+ * Resolves a short code or alias to its link record once per request, reading each tier at most
+ * once: alias -> canonical code and the L1 record (both in-process), the Redis link hash, then one DB
+ * query matching either key. The record is the handle the redirect, password and analytics stages
+ * work on, so none of them look the link up again.
+ *
+ * Alias entries are not invalidated explicitly. A record reached through the alias cache must still
+ * carry that alias; if it does not (alias changed, rollback), the entry is dropped and the DB decides.
+ *
+ * Misses (scanners enumerating codes) stop before Redis: an input the existence filter has never seen,
+ * or one the DB recently confirmed missing (NegativeLookupCache), is answered with an empty result.
+ * No exception is created for a miss; callers render the 404 themselves.
+ */
+@Service
+public class ShortCodeResolver {
+    private final RedirectCacheService redirectCacheService;
+    private final LinkCacheService linkCacheService;
+    private final UrlRepository urlRepository;
+    private final UrlService urlService;
+    private final ExistenceFilterService existenceFilterService;
+    private final NegativeLookupCache negativeLookupCache;
+
+    // alias key -> canonical short code
+    private final Cache<String, String> aliases;
+
+    private final Counter l1Resolved;
+    private final Counter redisResolved;
+    private final Counter dbResolved;
+    private final Counter filterMissed;
+    private final Counter negativeMissed;
+    private final Counter notFound;
+
+    // Share of the resolutions in the last miss-ratio interval that found nothing
+    private volatile double missRatio;
+    private double lastTotal;
+    private double lastMisses;
+
+    public ShortCodeResolver(RedirectCacheProperties properties,
+                             RedirectCacheService redirectCacheService,
+                             LinkCacheService linkCacheService,
+                             UrlRepository urlRepository,
+                             UrlService urlService,
+                             ExistenceFilterService existenceFilterService,
+                             NegativeLookupCache negativeLookupCache,
+                             MeterRegistry meterRegistry) {
+        this.redirectCacheService = redirectCacheService;
+        this.linkCacheService = linkCacheService;
+        this.urlRepository = urlRepository;
+        this.urlService = urlService;
+        this.existenceFilterService = existenceFilterService;
+        this.negativeLookupCache = negativeLookupCache;
+        this.aliases = CacheBuilder.newBuilder()
+                .maximumSize(properties.getAliasMaximumSize())
+                .expireAfterWrite(properties.getAliasTtl())
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, aliases, "redirect.alias");
+        this.l1Resolved = resolvedCounter(meterRegistry, "l1");
+        this.redisResolved = resolvedCounter(meterRegistry, "redis");
+        this.dbResolved = resolvedCounter(meterRegistry, "db");
+        this.filterMissed = resolvedCounter(meterRegistry, "filter");
+        this.negativeMissed = resolvedCounter(meterRegistry, "negative");
+        this.notFound = resolvedCounter(meterRegistry, "none");
+        Gauge.builder("redirect.miss.ratio", this, resolver -> resolver.missRatio)
+                .description("Share of short code / alias resolutions that found nothing (scan storms push it towards 1)")
+                .register(meterRegistry);
+    }
+
+    private static Counter resolvedCounter(MeterRegistry meterRegistry, String tier) {
+        return Counter.builder("redirect.resolve")
+                .description("Short code / alias resolutions by the tier that answered")
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${cache.redirect.miss-ratio-interval:10s}")
+    public synchronized void updateMissRatio() {
+        double misses = filterMissed.count() + negativeMissed.count() + notFound.count();
+        double total = misses + l1Resolved.count() + redisResolved.count() + dbResolved.count();
+        double resolutions = total - lastTotal;
+        missRatio = resolutions > 0 ? (misses - lastMisses) / resolutions : 0;
+        lastTotal = total;
+        lastMisses = misses;
+    }
+
+    public Optional<CachedShortCode> resolve(String shortCodeOrAlias) {
+        if (shortCodeOrAlias == null || shortCodeOrAlias.trim().isEmpty()) {
+            throw new IllegalArgumentException("Short code or alias must not be empty");
+        }
+        String code = LookupKeys.shortCode(shortCodeOrAlias);
+        String aliasKey = LookupKeys.alias(shortCodeOrAlias);
+
+        // A short code wins over an alias with the same spelling, so an unknown input is tried as a code first
+        String aliasTarget = aliases.getIfPresent(aliasKey);
+        String key = aliasTarget != null ? aliasTarget : code;
+
+        CachedShortCode link = redirectCacheService.get(key).orElse(null);
+        if (link != null) {
+            if (reachedThroughAlias(link, aliasTarget, aliasKey)) {
+                l1Resolved.increment();
+                return Optional.of(link);
+            }
+        } else {
+            // Negative fast path, only for inputs no in-process tier knows
+            if (aliasTarget == null) {
+                if (!existenceFilterService.mightContainShortCode(code) && !existenceFilterService.mightContainAlias(aliasKey)) {
+                    filterMissed.increment();
+                    return Optional.empty();
+                }
+                if (negativeLookupCache.isKnownMissing(code)) {
+                    negativeMissed.increment();
+                    return Optional.empty();
+                }
+            }
+
+            link = linkCacheService.getLink(key);
+            if (link != null && reachedThroughAlias(link, aliasTarget, aliasKey)) {
+                redirectCacheService.put(link);
+                redisResolved.increment();
+                return Optional.of(link);
+            }
+        }
+        if (aliasTarget != null) {
+            aliases.invalidate(aliasKey);
+        }
+
+        long generation = negativeLookupCache.generation();
+        ShortCode found = preferShortCode(urlRepository.findByShortCodeOrAliasKey(code, aliasKey), code);
+        if (found == null) {
+            negativeLookupCache.recordMissing(code, generation);
+            notFound.increment();
+            return Optional.empty();
+        }
+        link = urlService.toCachedLink(found);
+        linkCacheService.cacheLink(link);
+        redirectCacheService.put(link);
+        if (!code.equals(link.shortCode())) {
+            aliases.put(aliasKey, link.shortCode());
+        }
+        dbResolved.increment();
+        return Optional.of(link);
+    }
+
+    private static boolean reachedThroughAlias(CachedShortCode link, String aliasTarget, String aliasKey) {
+        return aliasTarget == null || aliasKey.equals(LookupKeys.alias(link.alias()));
+    }
+
+    static ShortCode preferShortCode(List<ShortCode> rows, String code) {
+        for (ShortCode row : rows) {
+            if (code.equals(row.getShortCode())) return row;
+        }
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+}
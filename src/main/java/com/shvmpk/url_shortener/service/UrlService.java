@@ -1,10 +1,8 @@
 package com.shvmpk.url_shortener.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.hash.BloomFilter;
-import com.google.common.hash.Funnels;
 import com.shvmpk.url_shortener.config.AppProperties;
+import com.shvmpk.url_shortener.config.ReachabilityProperties;
+import com.shvmpk.url_shortener.dto.CachedShortCode;
 import com.shvmpk.url_shortener.dto.ShortUrlRequest;
 import com.shvmpk.url_shortener.dto.ShortUrlResponse;
 import com.shvmpk.url_shortener.dto.ShortUrlUpdateRequest;
@@ -15,25 +13,18 @@ import com.shvmpk.url_shortener.model.UrlVersion;
 import com.shvmpk.url_shortener.repository.UrlRepository;
 import com.shvmpk.url_shortener.repository.UrlVersionRepository;
 import com.shvmpk.url_shortener.util.*;
-import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import net.sf.uadetector.ReadableUserAgent;
-import net.sf.uadetector.UserAgentStringParser;
-import net.sf.uadetector.service.UADetectorServiceFactory;
-import org.apache.kafka.common.errors.ResourceNotFoundException;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.DigestUtils;
 
-import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -46,40 +37,35 @@ public class UrlService {
     private final UrlRepository urlRepository;
     private final UrlVersionRepository urlVersionRepository;
     private final AnalyticsService analyticsService;
-    private final ObjectMapper objectMapper;
 
     private final RedisTemplate<String, String> redisTemplate;
     private final ShortUrlGenerator shortUrlGenerator;
-
-    private final UserAgentStringParser parser = UADetectorServiceFactory.getResourceModuleParser();
-    private final BloomFilter<String> bloomFilter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), 10000);
-
-    @PostConstruct
-    public void init() throws Exception {
-        initBloomFilter();
-    }
-
-    private void initBloomFilter() {
-        List<ShortCode> existing = urlRepository.findAll();
-        for (ShortCode mapping : existing) {
-            // Add short code and alias to bloom filter for quick lookup
-            bloomFilter.put(mapping.getShortCode());
-            if (mapping.getAlias() != null) {
-                bloomFilter.put(mapping.getAlias());
-            }
-        }
-        System.out.println("========= Bloom filter pre-filled with " + existing.size() + " entries =========");
-    }
+    private final LinkCacheService linkCacheService;
+    private final VisitorCounterService visitorCounterService;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final ReachabilityService reachabilityService;
+    private final ExistenceFilterService existenceFilterService;
+    private final NegativeLookupCache negativeLookupCache;
 
     // Resolve ShortUrl or Alias
     public ShortCode resolveShortCodeOrAlias(String input) {
         if (input == null || input.trim().isEmpty()) {
             throw new IllegalArgumentException("Short code or alias must not be empty");
         }
-        return urlRepository.findByShortCodeIgnoreCase(input)
-                .or(() -> urlRepository.findByAliasIgnoreCase(input))
-                .orElseThrow(() -> new ResourceNotFoundException(
-                        "Short code or alias not found: " + input));
+        String code = LookupKeys.shortCode(input);
+        String aliasKey = LookupKeys.alias(input);
+        // Same negative fast path as ShortCodeResolver, before the query
+        if ((!existenceFilterService.mightContainShortCode(code) && !existenceFilterService.mightContainAlias(aliasKey))
+                || negativeLookupCache.isKnownMissing(code)) {
+            throw new ResourceNotFoundException("Short code or alias not found: " + input);
+        }
+        long generation = negativeLookupCache.generation();
+        ShortCode found = ShortCodeResolver.preferShortCode(urlRepository.findByShortCodeOrAliasKey(code, aliasKey), code);
+        if (found == null) {
+            negativeLookupCache.recordMissing(code, generation);
+            throw new ResourceNotFoundException("Short code or alias not found: " + input);
+        }
+        return found;
     }
 
     // Logic to generate short URL
@@ -94,8 +80,14 @@ public class UrlService {
         }
         log.info("URL format validation passed");
 
-        // Step 3: Check reachability
-        if(!UrlUtils.isReachable(inputUrl)) {
+        // Step 3: Check reachability (async mode only rejects hosts already known to be dead and
+        // verifies new links after they are created)
+        boolean unreachable = switch (reachabilityService.getMode()) {
+            case SYNC -> !reachabilityService.isReachable(inputUrl);
+            case ASYNC -> reachabilityService.isKnownUnreachable(inputUrl);
+            case OFF -> false;
+        };
+        if (unreachable) {
             throw new InvalidUrlException("Unreachable URL");
         }
         log.info("URL reachability validation passed");
@@ -114,7 +106,7 @@ public class UrlService {
             if (customAlias.length() > 20)
                 throw new InvalidAliasException("Alias too long");
             try {
-                if (urlRepository.existsByAliasIgnoreCase(customAlias)) {
+                if (urlRepository.existsByAliasKey(LookupKeys.alias(customAlias))) {
                     throw new UrlConflictException("Alias already exists");
                 }
                 log.info("Custom alias check passed");
@@ -172,21 +164,16 @@ public class UrlService {
         // --------------------------
 
         log.info("Processing caching and lookups....");
-        String hash = DigestUtils.md5DigestAsHex(normalizedUrl.getBytes());
+        String hash = LookupKeys.urlHash(normalizedUrl);
         String redisHashKey = "longUrl:" + hash;
 
         // Step 8: Redis → shortCode (always store canonical shortCode in cache)
         String cachedShortKey = redisTemplate.opsForValue().get(redisHashKey);
         if (cachedShortKey != null) {
-            // Check if full object exists using shortKey
-            String cachedJson = redisTemplate.opsForValue().get("shortKey:" + cachedShortKey);
-            if (cachedJson != null) {
-                try {
-                    ShortCode cachedObject = objectMapper.readValue(cachedJson, ShortCode.class);
-                    return buildResponseFromEntity(cachedObject);
-                } catch (JsonProcessingException e) {
-                    log.warn("Failed to deserialize ShortUrl from Redis for key: {}", cachedShortKey, e);
-                }
+            // Check if the cached link record exists using shortKey
+            CachedShortCode cachedLink = linkCacheService.getLink(cachedShortKey);
+            if (cachedLink != null) {
+                return buildResponseFromEntity(cachedLink);
             }
         }
 
@@ -194,7 +181,7 @@ public class UrlService {
         log.info("cachedShortKey: {}", cachedShortKey);
 
         // Step 9: DB lookup
-        Optional<ShortCode> existing = urlRepository.findFirstByOriginalUrlIgnoreCase(normalizedUrl);
+        Optional<ShortCode> existing = urlRepository.findFirstByOriginalUrlHashAndOriginalUrl(hash, normalizedUrl);
         if (existing.isPresent()) {
             ShortCode found = existing.get();
             String canonicalShortKey = found.getShortCode();
@@ -202,30 +189,26 @@ public class UrlService {
 
             // Cache using canonical shortKey
             redisTemplate.opsForValue().set(redisHashKey, canonicalShortKey, Duration.ofDays(1));
-            try {
-                String json = objectMapper.writeValueAsString(found);
-                redisTemplate.opsForValue().set("shortKey:" + canonicalShortKey, json, Duration.ofDays(1));
-                log.info("Saved ShortUrl to Redis for key: {}", canonicalShortKey);
-            } catch (JsonProcessingException e) {
-                log.error("Failed to serialize ShortUrl to JSON", e);
-            }
+            CachedShortCode link = toCachedLink(found);
+            linkCacheService.cacheLink(link);
+            log.info("Saved ShortUrl to Redis for key: {}", canonicalShortKey);
 
-            return buildResponseFromEntity(found);
+            return buildResponseFromEntity(link);
         }
 
         // Step 10: Generate new shortKey
         String generatedShortCode = shortUrlGenerator.generate();
         log.info("generatedShortCode: {}", generatedShortCode);
 
-        // Bloom filter + existence check for both shortCode and alias
-        if (bloomFilter.mightContain(generatedShortCode)) {
-            if (urlRepository.existsByShortCodeIgnoreCase(generatedShortCode)) {
+        // Existence filter + DB check for both shortCode and alias
+        if (existenceFilterService.mightContainShortCode(generatedShortCode)) {
+            if (urlRepository.existsByShortCode(generatedShortCode)) {
                 throw new UrlConflictException("Short code collision");
             }
         }
 
-        if (isCustomAliasProvided && bloomFilter.mightContain(customAlias)) {
-            if (urlRepository.existsByAliasIgnoreCase(customAlias)) {
+        if (isCustomAliasProvided && existenceFilterService.mightContainAlias(customAlias)) {
+            if (urlRepository.existsByAliasKey(LookupKeys.alias(customAlias))) {
                 throw new UrlConflictException("Alias collision");
             }
         }
@@ -272,31 +255,42 @@ public class UrlService {
 
             // Cache using canonical shortCode (always use shortCode as key)
             redisTemplate.opsForValue().set(redisHashKey, generatedShortCode, Duration.ofDays(1));
-            try {
-                String json = objectMapper.writeValueAsString(finalMapping);
-                redisTemplate.opsForValue().set("shortKey:" + generatedShortCode, json, Duration.ofDays(1));
-            } catch (JsonProcessingException e) {
-                log.warn("Failed to cache ShortUrl object", e);
-            }
+            CachedShortCode link = toCachedLink(finalMapping);
+            linkCacheService.cacheLink(link);
 
-            // Add to Bloom filter
-            bloomFilter.put(generatedShortCode);
-            if(isCustomAliasProvided) {
-                bloomFilter.put(customAlias);
+            // Add to the existence filter here and on the other nodes
+            existenceFilterService.add(generatedShortCode, isCustomAliasProvided ? customAlias : null);
+
+            if (reachabilityService.getMode() == ReachabilityProperties.Mode.ASYNC) {
+                verifyReachabilityInBackground(link);
             }
 
-            return buildResponseFromEntity(finalMapping);
+            return buildResponseFromEntity(link);
         } catch (Exception e) {
             log.error("Failed to create short URL with versioning", e);
             throw new RuntimeException("Failed to create short URL", e);
         }
     }
 
+    // Disables the link if its destination turns out to be dead; runs on the HTTP client's thread
+    void verifyReachabilityInBackground(CachedShortCode link) {
+        reachabilityService.checkAsync(link.originalUrl()).thenAccept(reachable -> {
+            if (reachable) return;
+            try {
+                urlRepository.disableById(link.id());
+                evictCacheEntry(link.shortCode());
+                log.warn("Disabled short code {}: destination unreachable ({})", link.shortCode(), link.originalUrl());
+            } catch (Exception e) {
+                log.error("Failed to disable unreachable short code: {}", link.shortCode(), e);
+            }
+        });
+    }
+
     // Update URL
     @Transactional
     public ShortUrlUpdateResponse updateUrl(String canonicalShortCode, ShortUrlUpdateRequest updatedData) {
         // Load existing mapping
-        ShortCode shortCode = urlRepository.findByShortCodeIgnoreCase(canonicalShortCode)
+        ShortCode shortCode = urlRepository.findByShortCode(canonicalShortCode)
                 .orElseThrow(() -> new ResourceNotFoundException("Short code not found: " + canonicalShortCode));
 
         // Capture old alias (for cache eviction)
@@ -359,11 +353,9 @@ public class UrlService {
             return buildUpdatedResponseFromEntity(shortCode);
         }
 
-        // Evict old cache entries
+        // Evict old cache entries; all tiers are keyed by the canonical short code (the resolver's
+        // alias cache checks its entries on use)
         evictCacheEntry(oldShortCode);
-        if (oldAlias != null && !oldAlias.equalsIgnoreCase(newAlias)) {
-            evictCacheEntry(oldAlias.toLowerCase());
-        }
 
         // Get the latest version number
         int latestVersion = urlVersionRepository.findLatestVersionNumber(shortCode.getId());
@@ -446,39 +438,19 @@ public class UrlService {
         shortCode.setCurrentVersion(savedVersion);
         urlRepository.save(shortCode);
 
-        // Refresh cache with updated values
-        try {
-            String serialized = objectMapper.writeValueAsString(shortCode);
-            redisTemplate.opsForValue().set("shortKey:" + shortCode.getShortCode(), serialized, Duration.ofDays(1));
-            if (newAlias != null) {
-                redisTemplate.opsForValue().set("shortKey:" + newAlias.toLowerCase(), serialized, Duration.ofDays(1));
-            }
-        } catch (JsonProcessingException e) {
-            log.error("Failed to serialize ShortCode for caching", e);
-        }
-
-        String redirectKey = "redirect:" + shortCode.getShortCode();
-        Duration ttl = computeTtl(newExpiry);
-        redisTemplate.opsForValue().set(redirectKey, shortCode.getOriginalUrl(), ttl);
-        if (newAlias != null) {
-            redisTemplate.opsForValue().set("redirect:" + newAlias.toLowerCase(), shortCode.getOriginalUrl(), ttl);
+        // A new alias becomes visible to alias checks on every node once this commits
+        if (newAlias != null && !newAlias.equalsIgnoreCase(oldAlias)) {
+            existenceFilterService.add(shortCode.getShortCode(), newAlias);
         }
 
         return buildUpdatedResponseFromEntity(shortCode);
     }
 
-    private void evictCacheEntry(String key) {
-        redisTemplate.delete("shortKey:" + key);
-        redisTemplate.delete("redirect:" + key);
-    }
-
-    private Duration computeTtl(LocalDateTime expiresAt) {
-        if (expiresAt == null) {
-            // no expiry → let Redis default (or set very long if you prefer)
-            return Duration.ofDays(7);
-        }
-        Duration d = Duration.between(LocalDateTime.now(), expiresAt);
-        return d.isNegative() ? Duration.ZERO : d;
+    // Evict every cache tier holding a resolved mapping (L1 on all nodes and Redis). Inside a transaction
+    // both take effect on commit; Redis goes first so other nodes cannot reload the old record from it
+    public void evictCacheEntry(String key) {
+        linkCacheService.evictLink(key);
+        cacheInvalidationService.invalidate(key);
     }
 
     // Building the updated response
@@ -504,131 +476,115 @@ public class UrlService {
     }
 
     // Building the response
-    private ShortUrlResponse buildResponseFromEntity(ShortCode entity) {
-        String shortKey = (entity.getAlias() != null) ? entity.getAlias() : entity.getShortCode();
-        String expiration = entity.getIsClickBased() != null && entity.getIsClickBased()
-                ? "Expires after " + entity.getMaxClicks() + " clicks"
-                : entity.getExpiresAt() != null ? "Expires at " + entity.getExpiresAt().toString() : "No expiration";
-        String alias = entity.getAlias() != null ? appProperties.baseUrl() + "/" + entity.getAlias() : null;
+    ShortUrlResponse buildResponseFromEntity(CachedShortCode entity) {
+        String shortKey = (entity.alias() != null) ? entity.alias() : entity.shortCode();
+        String expiration = entity.isClickBased()
+                ? "Expires after " + entity.maxClicks() + " clicks"
+                : entity.expiresAt() != null ? "Expires at " + entity.expiresAt().toString() : "No expiration";
+        String alias = entity.alias() != null ? appProperties.baseUrl() + "/" + entity.alias() : null;
         return ShortUrlResponse.builder()
-                .shortUrl(appProperties.baseUrl() + "/" + entity.getShortCode())
+                .shortUrl(appProperties.baseUrl() + "/" + entity.shortCode())
                 .aliasUrl(alias)
                 .qrCodeUrl(appProperties.baseUrl() + "/qr/" + shortKey)
                 .expiresAt(expiration)
-                .maxClicksAllowed(entity.getMaxClicks())
-                .passwordProtected(entity.getIsProtected())
+                .maxClicksAllowed(entity.maxClicks())
+                .passwordProtected(entity.isProtected())
                 .build();
     }
 
-    // Redirect logic
-    public String redirectUrl(String canonicalShortCode, HttpServletRequest request, HttpServletResponse response, boolean skipPasswordCheck) {
-        if (canonicalShortCode == null || canonicalShortCode.trim().isEmpty()) {
-            throw new IllegalArgumentException("Short URL or alias cannot be empty");
+    // Redirect logic; link is the record ShortCodeResolver returned for this request, and any
+    // password check has already been done against it
+    public String redirectUrl(CachedShortCode link, HttpServletRequest request, HttpServletResponse response) {
+        String canonicalShortCode = link.shortCode();
+
+        // 1. Checks the record answers by itself
+        if (link.isDisabled()) {
+            throw new LinkDisabledException("URL disabled: destination unreachable");
+        }
+        if (link.isExpired(LocalDateTime.now())) {
+            expireLink(canonicalShortCode, link);
         }
 
-        canonicalShortCode = canonicalShortCode.trim().toLowerCase();
-        ShortCode mapping = null;
-        String cachedLongUrl = null;
-
-        // 1. Check redirect cache first (using canonical shortCode)
-        String redirectCacheKey = "redirect:" + canonicalShortCode;
-        System.out.println("Redirect cache key: " + redirectCacheKey);
-        cachedLongUrl = redisTemplate.opsForValue().get(redirectCacheKey);
-
-        // 2. Redis full object cache (using canonical shortCode)
-        if (mapping == null) {
-            String fullCacheKey = "shortKey:" + canonicalShortCode;
-            String fullObjectJson = redisTemplate.opsForValue().get(fullCacheKey);
-            if (fullObjectJson != null) {
-                try {
-                    mapping = objectMapper.readValue(fullObjectJson, ShortCode.class);
-                } catch (JsonProcessingException e) {
-                    log.warn("Failed to deserialize ShortCode from Redis: {}", canonicalShortCode, e);
-                }
-            }
+        // 2. One Redis round trip: check expiry and click limit against the shared record and record
+        //    the unique visitor atomically. Click-limited links need the record (the click counter is
+        //    checked against it), so a record evicted since resolution is written back from the handle.
+        String visitorId = getOrCreateVisitorId(request, response);
+        String hashedSignature = DigestUtils.md5DigestAsHex(visitorId.getBytes());
+        LinkCacheService.Visit visit = linkCacheService.recordVisit(canonicalShortCode, hashedSignature, link.isClickLimited());
+
+        if (visit.status() == LinkCacheService.VisitStatus.NOT_CACHED) {
+            linkCacheService.cacheLink(link);
+            visit = linkCacheService.recordVisit(canonicalShortCode, hashedSignature, link.isClickLimited());
         }
 
-        // 3. Fallback to DB using canonical shortCode
-        if (mapping == null) {
-            mapping = urlRepository.findByShortCodeIgnoreCase(canonicalShortCode)
-                    .orElseThrow(() -> new RuntimeException("URL not found"));
+        // Evicted again, or Redis failed: without the record the click counter is not checked, so a
+        // click-limited link fails closed rather than handing out clicks past maxClicks
+        if (visit.status() == LinkCacheService.VisitStatus.NOT_CACHED && link.isClickLimited()) {
+            throw new ServiceUnavailableException("Click limit cannot be checked right now, try again shortly");
         }
 
-        // 4. Expiration check
-        if (mapping.getExpiresAt() != null && mapping.getExpiresAt().isBefore(LocalDateTime.now())) {
-            urlRepository.delete(mapping);
-            redisTemplate.delete("shortCode:" + canonicalShortCode);
-            redisTemplate.delete("redirect:" + canonicalShortCode);
-            throw new RuntimeException("URL expired");
+        if (visit.status() == LinkCacheService.VisitStatus.DISABLED) {
+            throw new LinkDisabledException("URL disabled: destination unreachable");
         }
 
-        // 5. Password check
-        if (!skipPasswordCheck && mapping.getPassword() != null) {
-            String suppliedPassword = request.getParameter("password");
-            if (!PasswordUtil.verifyPassword(suppliedPassword, mapping.getPassword())) {
-                throw new RuntimeException("Password required or incorrect");
-            }
+        // 3. Expiration check
+        if (visit.status() == LinkCacheService.VisitStatus.EXPIRED) {
+            expireLink(canonicalShortCode, link);
         }
 
-        // 6. Max click limit check
-        if (mapping.getMaxClicks() != null && mapping.getUniqueVisitorCount() >= mapping.getMaxClicks()) {
+        // 4. Max click limit check
+        if (visit.status() == LinkCacheService.VisitStatus.CLICK_LIMIT_REACHED) {
             throw new RuntimeException("Maximum click limit reached");
         }
 
-        // 7. Redirect URL caching (if not already cached)
-        if (cachedLongUrl == null) {
-            String longUrl = mapping.getOriginalUrl();
-            if (mapping.getExpiresAt() != null) {
-                Duration ttl = Duration.between(LocalDateTime.now(), mapping.getExpiresAt());
-                if (!ttl.isNegative()) {
-                    redisTemplate.opsForValue().set(redirectCacheKey, longUrl, ttl);
-                }
+        // 5. Unique visitor count, written behind (exact: +1 per new visitor; approximate or
+        //    click-limited: the absolute count from Redis, so lost deltas are reconciled too)
+        if (visit.changed()) {
+            if ((visit.approximate() || link.isClickLimited()) && visit.visitorCount() >= 0) {
+                visitorCounterService.raiseTo(link.id(), visit.visitorCount());
             } else {
-                redisTemplate.opsForValue().set(redirectCacheKey, longUrl);
+                visitorCounterService.increment(link.id());
             }
-            cachedLongUrl = longUrl;
-        }
-
-        // 8. Unique visitor logic
-        String visitorId = getOrCreateVisitorId(request, response);
-        String hashedSignature = DigestUtils.md5DigestAsHex(visitorId.getBytes());
-        String visitorKey = "visitors:" + canonicalShortCode;
-        boolean isNewVisitor = isNewVisitor(visitorKey, hashedSignature);
-
-        if (isNewVisitor) {
-            mapping.setUniqueVisitorCount(mapping.getUniqueVisitorCount() + 1);
-            urlRepository.save(mapping);
         }
 
-        // 9. Analytics (always)
+        // 6. Analytics (always); the User-Agent is classified by the analytics consumer
         try {
             String ip = extractIp(request);
-            String userAgentStr = request.getHeader("User-Agent");
-            ReadableUserAgent agent = parser.parse(userAgentStr);
-            String os = agent.getOperatingSystem().getName();
-
-            analyticsService.saveAnalyticsAsync(mapping, ip, request, agent, os);
+            analyticsService.saveAnalyticsAsync(link.shortCode(), ip, request);
         } catch (Exception e) {
             log.error("Failed to track analytics for shortcode: {}", canonicalShortCode, e);
         }
 
-        return cachedLongUrl != null ? cachedLongUrl : mapping.getOriginalUrl();
+        return link.originalUrl();
+    }
+
+    // Snapshot for the cache tiers; the visitor count includes increments not yet flushed to the DB
+    CachedShortCode toCachedLink(ShortCode entity) {
+        CachedShortCode link = CachedShortCode.from(entity);
+        return link.toBuilder()
+                .uniqueVisitorCount(visitorCounterService.liveCount(link.id(), link.uniqueVisitorCount()))
+                .build();
+    }
+
+    private void expireLink(String canonicalShortCode, CachedShortCode link) {
+        urlRepository.deleteById(link.id());
+        evictCacheEntry(canonicalShortCode);
+        throw new RuntimeException("URL expired");
     }
 
     // Delete URL method
     public void deleteUrl(String canonicalShortCode) {
-        ShortCode mapping = urlRepository.findByShortCodeIgnoreCase(canonicalShortCode)
+        ShortCode mapping = urlRepository.findByShortCode(canonicalShortCode)
                 .orElseThrow(() -> new ResourceNotFoundException("Short code not found: " + canonicalShortCode));
 
         // Delete from database
         urlRepository.delete(mapping);
 
         // Clear all related caches
-        String hash = DigestUtils.md5DigestAsHex(mapping.getOriginalUrl().getBytes());
+        String hash = LookupKeys.urlHash(mapping.getOriginalUrl());
         redisTemplate.delete("longUrl:" + hash);
-        redisTemplate.delete("shortCode:" + canonicalShortCode);
-        redisTemplate.delete("redirect:" + canonicalShortCode);
-        redisTemplate.delete("visitors:" + canonicalShortCode);
+        evictCacheEntry(canonicalShortCode);
+        linkCacheService.evictVisitors(canonicalShortCode);
 
         log.info("Deleted short URL: {}", canonicalShortCode);
     }
@@ -665,21 +621,6 @@ public class UrlService {
         return ip;
     }
 
-    // Check unique visitor
-    private boolean isNewVisitor(String redisKey, String hashedSignature) {
-        try {
-            Long result = redisTemplate.opsForSet().add(redisKey, hashedSignature);
-            boolean isNew = result != null && result == 1;
-            if (isNew) {
-                redisTemplate.expire(redisKey, Duration.ofDays(30));
-            }
-            return isNew;
-        } catch (Exception e) {
-            System.err.println("Redis error when checking unique visitor: " + e.getMessage());
-            return false;
-        }
-    }
-
     private boolean equalsNullable(Object a, Object b) {
         return a == null ? b == null : a.equals(b);
     }
@@ -1,13 +1,13 @@
 package com.shvmpk.url_shortener.service;
 
 import com.shvmpk.url_shortener.dto.UrlVersionResponse;
+import com.shvmpk.url_shortener.exception.ResourceNotFoundException;
 import com.shvmpk.url_shortener.model.ShortCode;
 import com.shvmpk.url_shortener.model.UrlVersion;
 import com.shvmpk.url_shortener.repository.UrlRepository;
 import com.shvmpk.url_shortener.repository.UrlVersionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.kafka.common.errors.ResourceNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,6 +22,8 @@ import java.util.Objects;
 public class UrlVersionService {
     private final UrlVersionRepository urlVersionRepository;
     private final UrlRepository urlRepository;
+    private final UrlService urlService;
+    private final ExistenceFilterService existenceFilterService;
 
     public List<UrlVersionResponse> getVersionsByShortCodeOrAlias(ShortCode shortCode) {
         List<UrlVersion> versions = urlVersionRepository.findByShortCodeOrderByVersionNumberDesc(shortCode);
@@ -49,6 +51,9 @@ public class UrlVersionService {
                 .build();
         urlVersionRepository.save(backupVersion);
 
+        // Evict cached mappings for the current state; takes effect when the rollback commits
+        urlService.evictCacheEntry(shortCode.getShortCode());
+
         // Apply rollback values to ShortCode
         shortCode.setOriginalUrl(targetVersion.getOriginalUrl());
         shortCode.setAlias(targetVersion.getAlias());
@@ -77,6 +82,9 @@ public class UrlVersionService {
 
         shortCode.setCurrentVersion(savedRollback);
         urlRepository.save(shortCode);
+        if (shortCode.getAlias() != null) {
+            existenceFilterService.add(shortCode.getShortCode(), shortCode.getAlias());
+        }
 
         return convertToResponse(savedRollback);
     }
@@ -0,0 +1,55 @@
+package com.shvmpk.url_shortener.service;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.shvmpk.url_shortener.config.UserAgentCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import net.sf.uadetector.ReadableUserAgent;
+import net.sf.uadetector.UserAgentStringParser;
+import net.sf.uadetector.service.UADetectorServiceFactory;
+import org.springframework.stereotype.Service;
+
+/*
+ * UADetector classification of raw User-Agent strings for the analytics consumer.
+ *
+ * Parsing is regex-heavy, but real traffic carries few distinct UA strings, so results are kept in a
+ * bounded LRU cache (metrics: analytics.user-agent cache stats, plus the miss-path parse timer).
+ */
+@Service
+public class UserAgentClassifier {
+    public record Classification(String browser, String os, String deviceType, boolean bot) {}
+
+    private final UserAgentStringParser parser = UADetectorServiceFactory.getResourceModuleParser();
+    private final LoadingCache<String, Classification> cache;
+    private final Timer parseTimer;
+
+    public UserAgentClassifier(UserAgentCacheProperties properties, MeterRegistry meterRegistry) {
+        this.parseTimer = Timer.builder("analytics.user-agent.parse")
+                .description("UADetector parse time on a cache miss")
+                .register(meterRegistry);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .recordStats()
+                .build(CacheLoader.from(this::parse));
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "analytics.user-agent");
+    }
+
+    public Classification classify(String userAgent) {
+        return cache.getUnchecked(userAgent != null ? userAgent : "");
+    }
+
+    private Classification parse(String userAgent) {
+        return parseTimer.record(() -> {
+            ReadableUserAgent agent = parser.parse(userAgent);
+            String deviceType = agent.getDeviceCategory().getName();
+            return new Classification(
+                    agent.getName(),
+                    agent.getOperatingSystem().getName(),
+                    deviceType,
+                    "Robot".equalsIgnoreCase(deviceType));
+        });
+    }
+}
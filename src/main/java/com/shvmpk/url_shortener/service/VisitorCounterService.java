@@ -0,0 +1,106 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.config.VisitorCounterProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BinaryOperator;
+
+/*
+ * Write-behind aggregation of ShortCode.uniqueVisitorCount.
+ *
+ * Redirects only touch in-memory counters (per-key atomic merges on a ConcurrentHashMap, so
+ * contention is striped across bins); a scheduled flush drains them and writes one
+ * relative UPDATE per short code in JDBC batches. Exact-counted links accumulate deltas,
+ * HyperLogLog-counted links report absolute estimates which are applied with GREATEST.
+ */
+@Slf4j
+@Service
+public class VisitorCounterService {
+    private static final String INCREMENT_SQL =
+            "UPDATE short_code SET unique_visitor_count = unique_visitor_count + ? WHERE id = ?";
+    private static final String RAISE_SQL =
+            "UPDATE short_code SET unique_visitor_count = GREATEST(unique_visitor_count, ?) WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VisitorCounterProperties properties;
+
+    // short code id -> unflushed delta
+    private final Map<Long, Long> deltas = new ConcurrentHashMap<>();
+    // short code id -> highest unflushed absolute estimate
+    private final Map<Long, Long> estimates = new ConcurrentHashMap<>();
+
+    private final Counter flushedRows;
+
+    public VisitorCounterService(JdbcTemplate jdbcTemplate, VisitorCounterProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.flushedRows = Counter.builder("counters.visitors.flushed")
+                .description("Short code rows updated by the write-behind flush")
+                .register(meterRegistry);
+        Gauge.builder("counters.visitors.pending", () -> deltas.size() + estimates.size())
+                .description("Short codes with unflushed visitor counts")
+                .register(meterRegistry);
+    }
+
+    public void increment(Long shortCodeId) {
+        deltas.merge(shortCodeId, 1L, Long::sum);
+    }
+
+    public void raiseTo(Long shortCodeId, long estimate) {
+        estimates.merge(shortCodeId, estimate, Math::max);
+    }
+
+    // Live count = persisted count + what this node has not flushed yet
+    public int liveCount(Long shortCodeId, int persistedCount) {
+        long live = persistedCount + deltas.getOrDefault(shortCodeId, 0L);
+        live = Math.max(live, estimates.getOrDefault(shortCodeId, 0L));
+        return (int) Math.min(live, Integer.MAX_VALUE);
+    }
+
+    @Scheduled(fixedDelayString = "${counters.visitors.flush-interval:5s}")
+    public void flush() {
+        flush(deltas, INCREMENT_SQL, Long::sum);
+        flush(estimates, RAISE_SQL, Math::max);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void flush(Map<Long, Long> pending, String sql, BinaryOperator<Long> merge) {
+        if (pending.isEmpty()) return;
+
+        // remove() hands over each value atomically; increments arriving later start a new entry
+        List<Object[]> drained = new ArrayList<>();
+        for (Long id : pending.keySet()) {
+            Long value = pending.remove(id);
+            if (value != null) {
+                drained.add(new Object[]{value, id});
+            }
+        }
+
+        for (int from = 0; from < drained.size(); from += properties.getBatchSize()) {
+            List<Object[]> batch = drained.subList(from, Math.min(from + properties.getBatchSize(), drained.size()));
+            try {
+                jdbcTemplate.batchUpdate(sql, batch);
+                flushedRows.increment(batch.size());
+            } catch (Exception e) {
+                // Put the values back so the next flush retries them
+                log.error("Failed to flush {} visitor counters, will retry", batch.size(), e);
+                batch.forEach(row -> pending.merge((Long) row[1], (Long) row[0], merge));
+            }
+        }
+    }
+}
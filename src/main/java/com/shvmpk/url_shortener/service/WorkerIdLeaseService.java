@@ -0,0 +1,165 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.config.WorkerIdProperties;
+import com.shvmpk.url_shortener.util.MachineId;
+import com.shvmpk.url_shortener.util.SnowflakeIdGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/*
+ * Leases one of the 1024 Snowflake worker ids per node in Redis, so two pods never share one (the MAC
+ * derived id of MachineId routinely collides in containers).
+ *
+ * Acquire: SET NX PX on <prefix><id>, starting at a random id. Heartbeat: extend the lease if this
+ * node still owns it; if not, the node drops the id and acquires a new one. Both run as Lua scripts.
+ *
+ * Safe reclamation: the holder only issues ids until lease start / last heartbeat + leaseTtl -
+ * heartbeatInterval, while Redis keeps the key until leaseTtl after it arrived; an id is therefore
+ * never used by two nodes at once, even if heartbeats stop. Each holder also records a high-water
+ * mark (newest timestamp it may use, including the generator's MAX_AHEAD_MILLIS), and the next holder
+ * of the id starts its generator above it, so ids stay unique across owners despite clock skew.
+ *
+ * Release retires the generator and replaces the mark with the timestamp of its last id, so the next
+ * holder can issue ids right away instead of waiting for the clock to pass the end of the lease.
+ * Acquire skips ids whose mark is further ahead than now + MAX_AHEAD_MILLIS, since their generator
+ * would refuse to issue ids until the clock caught up.
+ */
+@Slf4j
+@Service
+public class WorkerIdLeaseService {
+    private static final int WORKER_IDS = (int) SnowflakeIdGenerator.MAX_MACHINE_ID + 1;
+
+    private final WorkerIdProperties properties;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final LongSupplier clock;
+    private final RedisScript<Long> acquireScript;
+    private final RedisScript<Long> renewScript;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    private record Lease(SnowflakeIdGenerator generator, long validUntil) {}
+
+    private volatile Lease lease;
+
+    public WorkerIdLeaseService(WorkerIdProperties properties, RedisTemplate<String, String> redisTemplate) {
+        this(properties, redisTemplate, System::currentTimeMillis);
+    }
+
+    WorkerIdLeaseService(WorkerIdProperties properties, RedisTemplate<String, String> redisTemplate, LongSupplier clock) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.clock = clock;
+        this.acquireScript = RedisScript.of(new ClassPathResource("scripts/worker-lease-acquire.lua"), Long.class);
+        this.renewScript = RedisScript.of(new ClassPathResource("scripts/worker-lease-renew.lua"), Long.class);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (properties.getMode() == WorkerIdProperties.Mode.MAC) {
+            lease = new Lease(new SnowflakeIdGenerator(MachineId.getMachineId()), Long.MAX_VALUE);
+            return;
+        }
+        try {
+            acquire();
+        } catch (Exception e) {
+            // Short codes cannot be generated until a heartbeat acquires an id
+            log.error("Failed to lease a Snowflake worker id, retrying on the next heartbeat", e);
+        }
+    }
+
+    // Generator bound to the current lease; throws while this node holds no valid worker id
+    public SnowflakeIdGenerator idGenerator() {
+        Lease current = lease;
+        if (current == null || clock.getAsLong() >= current.validUntil()) {
+            throw new IllegalStateException("No valid Snowflake worker id lease");
+        }
+        return current.generator();
+    }
+
+    @Scheduled(fixedDelayString = "${id-generator.worker-id.heartbeat-interval:10s}")
+    public synchronized void heartbeat() {
+        if (properties.getMode() != WorkerIdProperties.Mode.LEASE) return;
+
+        try {
+            Lease current = lease;
+            if (current == null) {
+                acquire();
+                return;
+            }
+            long validUntil = validUntil();
+            int workerId = (int) current.generator().getMachineId();
+            Long renewed = redisTemplate.execute(renewScript, keys(workerId), owner,
+                    Long.toString(properties.getLeaseTtl().toMillis()), Long.toString(highWater(validUntil)));
+            if (renewed != null && renewed == 1) {
+                lease = new Lease(current.generator(), validUntil);
+            } else {
+                log.warn("Lost the lease on Snowflake worker id {}, acquiring another", workerId);
+                lease = null;
+                acquire();
+            }
+        } catch (Exception e) {
+            // The current id stays usable until its validUntil; later heartbeats retry
+            log.warn("Snowflake worker id heartbeat failed", e);
+        }
+    }
+
+    synchronized void acquire() {
+        long validUntil = validUntil();
+        String ttl = Long.toString(properties.getLeaseTtl().toMillis());
+        String highWater = Long.toString(highWater(validUntil));
+        String usableUpTo = Long.toString(clock.getAsLong() + SnowflakeIdGenerator.MAX_AHEAD_MILLIS);
+
+        int start = ThreadLocalRandom.current().nextInt(WORKER_IDS);
+        for (int i = 0; i < WORKER_IDS; i++) {
+            int workerId = (start + i) % WORKER_IDS;
+            Long previousHighWater = redisTemplate.execute(acquireScript, keys(workerId), owner, ttl, highWater, usableUpTo);
+            if (previousHighWater != null && previousHighWater >= 0) {
+                lease = new Lease(new SnowflakeIdGenerator(workerId, previousHighWater, clock), validUntil);
+                log.info("Leased Snowflake worker id {}", workerId);
+                return;
+            }
+        }
+        throw new IllegalStateException("All " + WORKER_IDS + " Snowflake worker ids are leased or still in use");
+    }
+
+    @PreDestroy
+    public synchronized void release() {
+        Lease current = lease;
+        if (current == null || properties.getMode() != WorkerIdProperties.Mode.LEASE) return;
+
+        lease = null;
+        // Callers still holding the generator get an exception from now on, so its last id is final
+        long highWater = current.generator().retire();
+        try {
+            // TTL 0: the script deletes the lease after replacing the high-water mark
+            redisTemplate.execute(renewScript, keys((int) current.generator().getMachineId()), owner,
+                    "0", Long.toString(highWater));
+        } catch (Exception e) {
+            log.warn("Failed to release Snowflake worker id {}; it expires with its lease", current.generator().getMachineId(), e);
+        }
+    }
+
+    private long validUntil() {
+        return clock.getAsLong() + properties.getLeaseTtl().toMillis() - properties.getHeartbeatInterval().toMillis();
+    }
+
+    private static long highWater(long validUntil) {
+        return validUntil + SnowflakeIdGenerator.MAX_AHEAD_MILLIS;
+    }
+
+    private List<String> keys(int workerId) {
+        String lease = properties.getKeyPrefix() + workerId;
+        return List.of(lease, lease + ":high-water");
+    }
+}
@@ -0,0 +1,150 @@
+package com.shvmpk.url_shortener.util;
+
+import com.shvmpk.url_shortener.dto.AnalyticsEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/*
+ * Versioned binary wire format for AnalyticsEvent (Kafka value of analytics-events).
+ *
+ * Only the raw dimensions of a click are carried; counters and user-agent classification are derived
+ * by the consumer. Layout, version 1:
+ *
+ *   byte    version (1)
+ *   varint  presence bitmask, one bit per field below in declaration order
+ *   fields  strings as varint length + UTF-8, accessDate as varint epoch day, lastAccessTime as
+ *           varint epoch millis, latitude / longitude as 8-byte IEEE 754
+ *
+ * New fields are appended with the next bit, so version-1 readers stop at the bits they know. The
+ * first byte of a JSON event is always '{', which never collides with a version number.
+ */
+public class AnalyticsEventCodec {
+    public static final byte VERSION = 1;
+
+    private static final int SHORT_CODE = 1;
+    private static final int ACCESS_DATE = 1 << 1;
+    private static final int ACCESS_TIME = 1 << 2;
+    private static final int USER_AGENT = 1 << 3;
+    private static final int REFERER = 1 << 4;
+    private static final int UTM_SOURCE = 1 << 5;
+    private static final int UTM_MEDIUM = 1 << 6;
+    private static final int UTM_CAMPAIGN = 1 << 7;
+    private static final int UTM_TERM = 1 << 8;
+    private static final int COUNTRY = 1 << 9;
+    private static final int CITY = 1 << 10;
+    private static final int REGION = 1 << 11;
+    private static final int CONTINENT = 1 << 12;
+    private static final int LATITUDE = 1 << 13;
+    private static final int LONGITUDE = 1 << 14;
+
+    private AnalyticsEventCodec() {} // prevent instantiation
+
+    public static byte[] encode(AnalyticsEvent event) {
+        int mask = 0;
+        if (event.getShortCode() != null) mask |= SHORT_CODE;
+        if (event.getAccessDate() != null) mask |= ACCESS_DATE;
+        if (event.getLastAccessTime() != null) mask |= ACCESS_TIME;
+        if (event.getUserAgent() != null) mask |= USER_AGENT;
+        if (event.getReferer() != null) mask |= REFERER;
+        if (event.getUtmSource() != null) mask |= UTM_SOURCE;
+        if (event.getUtmMedium() != null) mask |= UTM_MEDIUM;
+        if (event.getUtmCampaign() != null) mask |= UTM_CAMPAIGN;
+        if (event.getUtmTerm() != null) mask |= UTM_TERM;
+        if (event.getCountry() != null) mask |= COUNTRY;
+        if (event.getCity() != null) mask |= CITY;
+        if (event.getRegion() != null) mask |= REGION;
+        if (event.getContinent() != null) mask |= CONTINENT;
+        if (event.getLatitude() != null) mask |= LATITUDE;
+        if (event.getLongitude() != null) mask |= LONGITUDE;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        out.write(VERSION);
+        writeVarLong(out, mask);
+        if ((mask & SHORT_CODE) != 0) writeString(out, event.getShortCode());
+        if ((mask & ACCESS_DATE) != 0) writeVarLong(out, event.getAccessDate().toEpochDay());
+        if ((mask & ACCESS_TIME) != 0) writeVarLong(out, event.getLastAccessTime().toEpochMilli());
+        if ((mask & USER_AGENT) != 0) writeString(out, event.getUserAgent());
+        if ((mask & REFERER) != 0) writeString(out, event.getReferer());
+        if ((mask & UTM_SOURCE) != 0) writeString(out, event.getUtmSource());
+        if ((mask & UTM_MEDIUM) != 0) writeString(out, event.getUtmMedium());
+        if ((mask & UTM_CAMPAIGN) != 0) writeString(out, event.getUtmCampaign());
+        if ((mask & UTM_TERM) != 0) writeString(out, event.getUtmTerm());
+        if ((mask & COUNTRY) != 0) writeString(out, event.getCountry());
+        if ((mask & CITY) != 0) writeString(out, event.getCity());
+        if ((mask & REGION) != 0) writeString(out, event.getRegion());
+        if ((mask & CONTINENT) != 0) writeString(out, event.getContinent());
+        if ((mask & LATITUDE) != 0) writeDouble(out, event.getLatitude());
+        if ((mask & LONGITUDE) != 0) writeDouble(out, event.getLongitude());
+        return out.toByteArray();
+    }
+
+    public static AnalyticsEvent decode(byte[] data) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported analytics event version: " + version);
+        }
+
+        long mask = readVarLong(in);
+        AnalyticsEvent event = new AnalyticsEvent();
+        if ((mask & SHORT_CODE) != 0) event.setShortCode(readString(in));
+        if ((mask & ACCESS_DATE) != 0) event.setAccessDate(LocalDate.ofEpochDay(readVarLong(in)));
+        if ((mask & ACCESS_TIME) != 0) event.setLastAccessTime(Instant.ofEpochMilli(readVarLong(in)));
+        if ((mask & USER_AGENT) != 0) event.setUserAgent(readString(in));
+        if ((mask & REFERER) != 0) event.setReferer(readString(in));
+        if ((mask & UTM_SOURCE) != 0) event.setUtmSource(readString(in));
+        if ((mask & UTM_MEDIUM) != 0) event.setUtmMedium(readString(in));
+        if ((mask & UTM_CAMPAIGN) != 0) event.setUtmCampaign(readString(in));
+        if ((mask & UTM_TERM) != 0) event.setUtmTerm(readString(in));
+        if ((mask & COUNTRY) != 0) event.setCountry(readString(in));
+        if ((mask & CITY) != 0) event.setCity(readString(in));
+        if ((mask & REGION) != 0) event.setRegion(readString(in));
+        if ((mask & CONTINENT) != 0) event.setContinent(readString(in));
+        if ((mask & LATITUDE) != 0) event.setLatitude(in.getDouble());
+        if ((mask & LONGITUDE) != 0) event.setLongitude(in.getDouble());
+        return event;
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = (int) readVarLong(in);
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static void writeDouble(ByteArrayOutputStream out, double value) {
+        long bits = Double.doubleToLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (bits >>> shift));
+        }
+    }
+
+    // Unsigned LEB128; all encoded values are non-negative
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
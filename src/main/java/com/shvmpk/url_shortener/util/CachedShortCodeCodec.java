@@ -0,0 +1,82 @@
+package com.shvmpk.url_shortener.util;
+
+import com.shvmpk.url_shortener.dto.CachedShortCode;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Versioned Redis hash layout for CachedShortCode (key: link:<code>).
+ * Fields are short and flat so Redis can read single fields (and scripts can check expiry / clicks)
+ * without touching the rest; decoding is plain string parsing, no reflection.
+ */
+public class CachedShortCodeCodec {
+    public static final String VERSION = "1";
+
+    public static final String F_VERSION = "v";
+    public static final String F_ID = "id";
+    public static final String F_CODE = "code";
+    public static final String F_ALIAS = "alias";
+    public static final String F_URL = "url";
+    public static final String F_PROTECTED = "prot";
+    public static final String F_PASSWORD = "pw";
+    public static final String F_EXPIRES_AT = "exp";   // epoch millis
+    public static final String F_MAX_CLICKS = "max";
+    public static final String F_VISITORS = "uv";
+    public static final String F_CLICK_BASED = "cb";
+    public static final String F_DISABLED = "dis";     // absent in older records, read as "0"
+
+    private CachedShortCodeCodec() {} // prevent instantiation
+
+    public static Map<String, String> toHash(CachedShortCode link) {
+        Map<String, String> hash = new HashMap<>(16);
+        hash.put(F_VERSION, VERSION);
+        hash.put(F_ID, Long.toString(link.id()));
+        hash.put(F_CODE, link.shortCode());
+        hash.put(F_URL, link.originalUrl());
+        hash.put(F_PROTECTED, link.isProtected() ? "1" : "0");
+        hash.put(F_VISITORS, Integer.toString(link.uniqueVisitorCount()));
+        hash.put(F_CLICK_BASED, link.isClickBased() ? "1" : "0");
+        hash.put(F_DISABLED, link.isDisabled() ? "1" : "0");
+        if (link.alias() != null) hash.put(F_ALIAS, link.alias());
+        if (link.password() != null) hash.put(F_PASSWORD, link.password());
+        if (link.expiresAt() != null) hash.put(F_EXPIRES_AT, Long.toString(toEpochMillis(link.expiresAt())));
+        if (link.maxClicks() != null) hash.put(F_MAX_CLICKS, Integer.toString(link.maxClicks()));
+        return hash;
+    }
+
+    // Returns null for an empty hash or an unknown layout version, which callers treat as a cache miss
+    public static CachedShortCode fromHash(Map<?, ?> hash) {
+        if (hash == null || hash.isEmpty() || !VERSION.equals(hash.get(F_VERSION))) {
+            return null;
+        }
+        String expiresAt = (String) hash.get(F_EXPIRES_AT);
+        String maxClicks = (String) hash.get(F_MAX_CLICKS);
+        String visitors = (String) hash.get(F_VISITORS);
+
+        return CachedShortCode.builder()
+                .id(Long.parseLong((String) hash.get(F_ID)))
+                .shortCode((String) hash.get(F_CODE))
+                .alias((String) hash.get(F_ALIAS))
+                .originalUrl((String) hash.get(F_URL))
+                .isProtected("1".equals(hash.get(F_PROTECTED)))
+                .password((String) hash.get(F_PASSWORD))
+                .expiresAt(expiresAt != null ? fromEpochMillis(Long.parseLong(expiresAt)) : null)
+                .maxClicks(maxClicks != null ? Integer.valueOf(maxClicks) : null)
+                .uniqueVisitorCount(visitors != null ? Integer.parseInt(visitors) : 0)
+                .isClickBased("1".equals(hash.get(F_CLICK_BASED)))
+                .isDisabled("1".equals(hash.get(F_DISABLED)))
+                .build();
+    }
+
+    public static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public static LocalDateTime fromEpochMillis(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
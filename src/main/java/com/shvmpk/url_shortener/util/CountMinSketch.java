@@ -0,0 +1,68 @@
+package com.shvmpk.url_shortener.util;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * Count-Min Sketch over string keys: depth rows of width counters, one murmur3 hash per key split
+ * into two halves for the row indexes (Kirsch-Mitzenmacher). estimate() never undercounts and
+ * overcounts by at most e/width of the total with probability 1 - e^-depth. Not thread-safe.
+ */
+public class CountMinSketch {
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final int width;
+    private final long[][] counters;
+    private long total;
+
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) throw new IllegalArgumentException("width and depth must be positive");
+        this.width = width;
+        this.counters = new long[depth][width];
+    }
+
+    public void add(String key, long count) {
+        ByteBuffer hash = hash(key);
+        long h1 = hash.getLong(0);
+        long h2 = hash.getLong(8);
+        for (int row = 0; row < counters.length; row++) {
+            counters[row][index(h1, h2, row)] += count;
+        }
+        total += count;
+    }
+
+    public long estimate(String key) {
+        ByteBuffer hash = hash(key);
+        long h1 = hash.getLong(0);
+        long h2 = hash.getLong(8);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < counters.length; row++) {
+            min = Math.min(min, counters[row][index(h1, h2, row)]);
+        }
+        return min;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public void clear() {
+        for (long[] row : counters) {
+            Arrays.fill(row, 0);
+        }
+        total = 0;
+    }
+
+    private static ByteBuffer hash(String key) {
+        return ByteBuffer.wrap(HASH.hashString(key, StandardCharsets.UTF_8).asBytes()).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private int index(long h1, long h2, int row) {
+        return (int) Math.floorMod(h1 + row * h2, (long) width);
+    }
+}
@@ -0,0 +1,43 @@
+package com.shvmpk.url_shortener.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+
+// Per-value last-seen instants, stored as ISO-8601 strings
+@Converter
+public class JsonInstantMapConverter implements AttributeConverter<Map<String, Instant>, String> {
+    private static final TypeReference<Map<String, Instant>> TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Override
+    public String convertToDatabaseColumn(Map<String, Instant> attribute) {
+        if (attribute == null) return null;
+        try {
+            return objectMapper.writeValueAsString(attribute);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Error converting map to JSON", e);
+        }
+    }
+
+    @Override
+    public Map<String, Instant> convertToEntityAttribute(String dbData) {
+        if (dbData == null) return null;
+        try {
+            return objectMapper.readValue(dbData, TYPE);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Error converting JSON to map", e);
+        }
+    }
+}
@@ -3,26 +3,21 @@ package com.shvmpk.url_shortener.util;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
 
 import java.io.IOException;
-import java.time.Instant;
-import java.time.format.DateTimeParseException;
-import java.util.HashMap;
 import java.util.Map;
 
+// Per-value visit counts; the last-seen maps use JsonInstantMapConverter
 @Converter
-public class JsonMapConverter implements AttributeConverter<Map<String, ?>, String> {
+public class JsonMapConverter implements AttributeConverter<Map<String, Integer>, String> {
+    private static final TypeReference<Map<String, Integer>> TYPE = new TypeReference<>() {};
 
-    private final ObjectMapper objectMapper = new ObjectMapper()
-            .registerModule(new JavaTimeModule())
-            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
-    public String convertToDatabaseColumn(Map<String, ?> attribute) {
+    public String convertToDatabaseColumn(Map<String, Integer> attribute) {
         if (attribute == null) return null;
         try {
             return objectMapper.writeValueAsString(attribute);
@@ -32,27 +27,10 @@ public class JsonMapConverter implements AttributeConverter<Map<String, ?>, Stri
     }
 
     @Override
-    public Map<String, ?> convertToEntityAttribute(String dbData) {
+    public Map<String, Integer> convertToEntityAttribute(String dbData) {
         if (dbData == null) return null;
         try {
-            // Try parsing generically, then manually cast known types if needed
-            Map<String, Object> map = objectMapper.readValue(dbData, new TypeReference<>() {});
-            Map<String, Object> result = new HashMap<>();
-            for (Map.Entry<String, Object> entry : map.entrySet()) {
-                Object value = entry.getValue();
-                if (value instanceof String str) {
-                    // Try parse as Instant if format matches
-                    try {
-                        Instant instant = Instant.parse(str);
-                        result.put(entry.getKey(), instant);
-                    } catch (DateTimeParseException e) {
-                        result.put(entry.getKey(), str);
-                    }
-                } else {
-                    result.put(entry.getKey(), value);
-                }
-            }
-            return result;
+            return objectMapper.readValue(dbData, TYPE);
         } catch (IOException e) {
             throw new IllegalArgumentException("Error converting JSON to map", e);
         }
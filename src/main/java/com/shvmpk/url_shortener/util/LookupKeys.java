@@ -0,0 +1,30 @@
+package com.shvmpk.url_shortener.util;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/*
+ * Canonical keys stored next to the raw ShortCode columns and matched with plain equality, so each
+ * hot lookup is one probe of a B-tree index instead of upper(col) = upper(?) over the whole table.
+ *
+ * Short codes are Base62 and therefore case-sensitive: the code is its own key. Aliases are
+ * case-insensitive: the key is the lower-case alias. Original URLs are keyed by the MD5 of the
+ * normalized URL (the same digest as the longUrl:<md5> Redis key).
+ */
+public class LookupKeys {
+    private LookupKeys() {} // prevent instantiation
+
+    public static String shortCode(String input) {
+        return input.trim();
+    }
+
+    public static String alias(String alias) {
+        return alias != null ? alias.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    public static String urlHash(String normalizedUrl) {
+        return DigestUtils.md5DigestAsHex(normalizedUrl.getBytes(StandardCharsets.UTF_8));
+    }
+}
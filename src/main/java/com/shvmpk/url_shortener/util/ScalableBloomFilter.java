@@ -0,0 +1,156 @@
+package com.shvmpk.url_shortener.util;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.Funnels;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Scalable Bloom filter (Almeida et al.) over string keys: a chain of Guava Bloom filters where layer
+ * i holds initialCapacity * growth^i keys at false-positive rate fpp * tightening^i. A new layer is
+ * added once the newest one is full, so the compound rate stays below fpp / (1 - tightening) however
+ * many keys arrive, instead of degrading like a fixed-size filter.
+ *
+ * put() and mightContain() are thread-safe; adding a layer takes a lock, nothing else does.
+ *
+ * writeTo / readFrom use a compact binary layout: version, settings, then per layer its capacity,
+ * rate, insert count and Guava's own serialized bit array.
+ */
+public class ScalableBloomFilter {
+    private static final int VERSION = 1;
+    private static final Funnel<CharSequence> FUNNEL = Funnels.stringFunnel(StandardCharsets.UTF_8);
+
+    private final long initialCapacity;
+    private final double fpp;
+    private final int growth;
+    private final double tightening;
+
+    private final List<Layer> layers = new CopyOnWriteArrayList<>();
+
+    private static final class Layer {
+        final BloomFilter<CharSequence> filter;
+        final long capacity;
+        final double fpp;
+        final AtomicLong count;
+
+        Layer(BloomFilter<CharSequence> filter, long capacity, double fpp, long count) {
+            this.filter = filter;
+            this.capacity = capacity;
+            this.fpp = fpp;
+            this.count = new AtomicLong(count);
+        }
+    }
+
+    public ScalableBloomFilter(long initialCapacity, double fpp, int growth, double tightening) {
+        if (initialCapacity < 1) throw new IllegalArgumentException("initialCapacity must be positive");
+        if (fpp <= 0 || fpp >= 1) throw new IllegalArgumentException("fpp must be in (0, 1)");
+        if (growth < 1) throw new IllegalArgumentException("growth must be at least 1");
+        if (tightening <= 0 || tightening >= 1) throw new IllegalArgumentException("tightening must be in (0, 1)");
+        this.initialCapacity = initialCapacity;
+        this.fpp = fpp;
+        this.growth = growth;
+        this.tightening = tightening;
+        addLayer();
+    }
+
+    public boolean mightContain(String key) {
+        // Newest layer first: recent keys are the ones most often looked up
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            if (layers.get(i).filter.mightContain(key)) return true;
+        }
+        return false;
+    }
+
+    public void put(String key) {
+        if (mightContain(key)) return; // keeps counts close to distinct keys, so layers fill at the planned rate
+
+        Layer layer = layers.get(layers.size() - 1);
+        if (layer.count.get() >= layer.capacity) {
+            layer = grow(layer);
+        }
+        if (layer.filter.put(key)) {
+            layer.count.incrementAndGet();
+        }
+    }
+
+    private synchronized Layer grow(Layer full) {
+        Layer newest = layers.get(layers.size() - 1);
+        return newest != full ? newest : addLayer();
+    }
+
+    private Layer addLayer() {
+        int index = layers.size();
+        long capacity = (long) Math.min(initialCapacity * Math.pow(growth, index), Integer.MAX_VALUE);
+        double layerFpp = fpp * Math.pow(tightening, index);
+        Layer layer = new Layer(BloomFilter.create(FUNNEL, capacity, layerFpp), capacity, layerFpp, 0);
+        layers.add(layer);
+        return layer;
+    }
+
+    public int layerCount() {
+        return layers.size();
+    }
+
+    // Keys inserted (approximately distinct)
+    public long size() {
+        long size = 0;
+        for (Layer layer : layers) {
+            size += layer.count.get();
+        }
+        return size;
+    }
+
+    // Upper bound on the current false-positive rate: 1 - product of (1 - expected rate of each layer)
+    public double expectedFpp() {
+        double none = 1;
+        for (Layer layer : layers) {
+            none *= 1 - layer.filter.expectedFpp();
+        }
+        return 1 - none;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        List<Layer> snapshot = new ArrayList<>(layers);
+        data.writeInt(VERSION);
+        data.writeLong(initialCapacity);
+        data.writeDouble(fpp);
+        data.writeInt(growth);
+        data.writeDouble(tightening);
+        data.writeInt(snapshot.size());
+        for (Layer layer : snapshot) {
+            data.writeLong(layer.capacity);
+            data.writeDouble(layer.fpp);
+            data.writeLong(layer.count.get());
+            layer.filter.writeTo(data);
+        }
+        data.flush();
+    }
+
+    public static ScalableBloomFilter readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported Bloom filter checkpoint version: " + version);
+        }
+        ScalableBloomFilter filter = new ScalableBloomFilter(data.readLong(), data.readDouble(), data.readInt(), data.readDouble());
+        filter.layers.clear();
+        int layerCount = data.readInt();
+        for (int i = 0; i < layerCount; i++) {
+            long capacity = data.readLong();
+            double layerFpp = data.readDouble();
+            long count = data.readLong();
+            filter.layers.add(new Layer(BloomFilter.readFrom(data, FUNNEL), capacity, layerFpp, count));
+        }
+        if (filter.layers.isEmpty()) {
+            throw new IOException("Bloom filter checkpoint has no layers");
+        }
+        return filter;
+    }
+}
@@ -1,18 +1,31 @@
 package com.shvmpk.url_shortener.util;
 
+import com.shvmpk.url_shortener.service.WorkerIdLeaseService;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Component
 public class ShortUrlGenerator {
 
-    private final SnowflakeIdGenerator idGenerator;
+    private final WorkerIdLeaseService workerIdLeaseService;
 
-    public ShortUrlGenerator() {
-        long machineId = MachineId.getMachineId();
-        this.idGenerator = new SnowflakeIdGenerator(machineId);
+    // The generator is looked up per call: it changes when the node's worker id lease is replaced
+    public ShortUrlGenerator(WorkerIdLeaseService workerIdLeaseService) {
+        this.workerIdLeaseService = workerIdLeaseService;
     }
 
     public String generate() {
-        return Base62Encoder.encode(idGenerator.nextId());
+        return Base62Encoder.encode(workerIdLeaseService.idGenerator().nextId());
+    }
+
+    public List<String> generate(int count) {
+        long[] ids = workerIdLeaseService.idGenerator().nextIds(count);
+        List<String> codes = new ArrayList<>(count);
+        for (long id : ids) {
+            codes.add(Base62Encoder.encode(id));
+        }
+        return codes;
     }
 }
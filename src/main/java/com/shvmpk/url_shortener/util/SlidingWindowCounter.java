@@ -0,0 +1,136 @@
+package com.shvmpk.url_shortener.util;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+
+/*
+ * Click counts of the last hour as a ring of 60 one-minute buckets.
+ *
+ * Each slot holds the epoch minute it currently counts, so a slot is lazily reset when the ring wraps
+ * onto it; no background rotation is needed. Recording is O(1), a window sum reads at most 60 slots,
+ * and the footprint is fixed regardless of traffic. Clicks older than the ring (late Kafka
+ * deliveries) are dropped. Not thread-safe: a row is only touched by its partition's consumer.
+ *
+ * Persisted form (see SlidingWindowCounterConverter): version byte, epoch minute of the newest
+ * bucket, then per-minute counts newest first as varints, trailing empty minutes omitted.
+ */
+public class SlidingWindowCounter {
+    public static final int BUCKETS = 60;
+    public static final long BUCKET_MILLIS = 60_000;
+
+    private static final byte VERSION = 1;
+
+    private final long[] minutes = new long[BUCKETS];
+    private final int[] counts = new int[BUCKETS];
+    private long newestMinute = Long.MIN_VALUE;
+
+    public void record(Instant at) {
+        record(at, 1);
+    }
+
+    public void record(Instant at, int clicks) {
+        long minute = Math.floorDiv(at.toEpochMilli(), BUCKET_MILLIS);
+        if (newestMinute != Long.MIN_VALUE && minute <= newestMinute - BUCKETS) return; // fell out of the window
+
+        int slot = slot(minute);
+        if (minutes[slot] != minute) {
+            minutes[slot] = minute;
+            counts[slot] = 0;
+        }
+        counts[slot] += clicks;
+        newestMinute = Math.max(newestMinute, minute);
+    }
+
+    // Clicks in the last `window` minutes up to and including the minute of `now`
+    public int count(Instant now, int window) {
+        long current = Math.floorDiv(now.toEpochMilli(), BUCKET_MILLIS);
+        long oldest = current - Math.min(window, BUCKETS) + 1;
+        int total = 0;
+        for (int slot = 0; slot < BUCKETS; slot++) {
+            if (counts[slot] != 0 && minutes[slot] >= oldest && minutes[slot] <= current) {
+                total += counts[slot];
+            }
+        }
+        return total;
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer out = ByteBuffer.allocate(1 + 8 + BUCKETS * 5);
+        out.put(VERSION);
+        if (newestMinute == Long.MIN_VALUE) {
+            return Arrays.copyOf(out.array(), out.position());
+        }
+        out.putLong(newestMinute);
+
+        int used = 0;
+        for (int age = 0; age < BUCKETS; age++) {
+            if (countAt(newestMinute - age) != 0) used = age + 1;
+        }
+        for (int age = 0; age < used; age++) {
+            writeVarInt(out, countAt(newestMinute - age));
+        }
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    // Unknown versions and malformed input decode as an empty window; it refills within the hour
+    public static SlidingWindowCounter fromBytes(byte[] data) {
+        SlidingWindowCounter counter = new SlidingWindowCounter();
+        if (data == null || data.length < 1 + 8 || data[0] != VERSION) return counter;
+
+        ByteBuffer in = ByteBuffer.wrap(data);
+        in.get();
+        long newest = in.getLong();
+        for (int age = 0; age < BUCKETS && in.hasRemaining(); age++) {
+            int clicks = readVarInt(in);
+            if (clicks < 0) return new SlidingWindowCounter();
+            if (clicks > 0) {
+                int slot = counter.slot(newest - age);
+                counter.minutes[slot] = newest - age;
+                counter.counts[slot] = clicks;
+            }
+        }
+        counter.newestMinute = newest;
+        return counter;
+    }
+
+    private int countAt(long minute) {
+        int slot = slot(minute);
+        return minutes[slot] == minute ? counts[slot] : 0;
+    }
+
+    private int slot(long minute) {
+        return (int) Math.floorMod(minute, BUCKETS);
+    }
+
+    private static void writeVarInt(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    // -1 when truncated or longer than 5 bytes
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35 && in.hasRemaining(); shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SlidingWindowCounter other)) return false;
+        return Arrays.equals(toBytes(), other.toBytes());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toBytes());
+    }
+}
@@ -0,0 +1,18 @@
+package com.shvmpk.url_shortener.util;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter
+public class SlidingWindowCounterConverter implements AttributeConverter<SlidingWindowCounter, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(SlidingWindowCounter counter) {
+        return counter != null ? counter.toBytes() : null;
+    }
+
+    @Override
+    public SlidingWindowCounter convertToEntityAttribute(byte[] data) {
+        return data != null ? SlidingWindowCounter.fromBytes(data) : null;
+    }
+}
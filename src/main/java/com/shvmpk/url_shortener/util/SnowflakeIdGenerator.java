@@ -1,55 +1,117 @@
 package com.shvmpk.url_shortener.util;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/*
+ * 41-bit millisecond timestamp | 10-bit worker id | 12-bit sequence.
+ *
+ * Lock-free: the last issued (timestamp, sequence) pair is one AtomicLong, laid out exactly like the
+ * id without the worker bits, and every id is a single CAS on it. A new millisecond starts at sequence
+ * 0; within the same millisecond the state is incremented, and a sequence overflow carries into the
+ * timestamp, i.e. borrows the next millisecond instead of spinning until it arrives.
+ *
+ * The same borrowing absorbs a clock that steps backwards: ids keep increasing from the last state.
+ * Ids never run more than MAX_AHEAD_MILLIS ahead of the clock, which lets a worker id lease holder
+ * state the highest timestamp it can have used (see WorkerIdLeaseService). At that bound a caller
+ * briefly parks until the clock catches up (sustained overload, > 4096 ids/ms), or gets an
+ * IllegalStateException if the clock is further behind than MAX_WAIT_MILLIS (a large regression).
+ */
 public class SnowflakeIdGenerator {
-    private final long machineId;
-    private static final long EPOCH = 1609459200000L; // Jan 1, 2021
+    public static final long EPOCH = 1609459200000L; // Jan 1, 2021
+    public static final long MAX_AHEAD_MILLIS = 1_000;
+    private static final long MAX_WAIT_MILLIS = 100;
 
     private static final long MACHINE_ID_BITS = 10L;
     private static final long SEQUENCE_BITS = 12L;
 
-    private static final long MAX_MACHINE_ID = ~(-1L << MACHINE_ID_BITS);
+    public static final long MAX_MACHINE_ID = ~(-1L << MACHINE_ID_BITS);
     private static final long MAX_SEQUENCE = ~(-1L << SEQUENCE_BITS);
+    private static final long RETIRED = Long.MIN_VALUE; // flag bit on the state
 
     private static final long MACHINE_ID_SHIFT = SEQUENCE_BITS;
     private static final long TIMESTAMP_SHIFT = SEQUENCE_BITS + MACHINE_ID_BITS;
 
-    private long lastTimestamp = -1L;
-    private long sequence = 0L;
+    private final long machineId;
+    private final LongSupplier clock;
+
+    // (millis since EPOCH) << SEQUENCE_BITS | sequence of the last issued id
+    private final AtomicLong state;
 
     public SnowflakeIdGenerator(long machineId) {
-        if (machineId > MAX_MACHINE_ID) {
+        this(machineId, 0, System::currentTimeMillis);
+    }
+
+    // floorMillis: no id is issued with a timestamp at or below it (ids a previous holder of the
+    // worker id may have issued)
+    public SnowflakeIdGenerator(long machineId, long floorMillis, LongSupplier clock) {
+        if (machineId < 0 || machineId > MAX_MACHINE_ID) {
             throw new IllegalArgumentException("Machine ID out of bounds: " + machineId);
         }
         this.machineId = machineId;
+        this.clock = clock;
+        long floor = Math.max(floorMillis - EPOCH, 0);
+        this.state = new AtomicLong((floor << SEQUENCE_BITS) | MAX_SEQUENCE); // next id: floor + 1 ms, sequence 0
     }
 
-    public synchronized long nextId() {
-        long timestamp = currentTime();
+    public long nextId() {
+        return toId(reserve(1));
+    }
 
-        if (timestamp == lastTimestamp) {
-            sequence = (sequence + 1) & MAX_SEQUENCE;
-            if (sequence == 0) {
-                timestamp = waitNextMillis(timestamp);
-            }
-        } else {
-            sequence = 0;
+    // Reserves count consecutive ids with one CAS; ids spill into following milliseconds whenever the
+    // per-millisecond sequence runs out, like nextId()
+    public long[] nextIds(int count) {
+        long[] ids = new long[count];
+        if (count == 0) return ids;
+        long first = reserve(count) - count + 1;
+        for (int i = 0; i < count; i++) {
+            ids[i] = toId(first + i);
         }
+        return ids;
+    }
 
-        lastTimestamp = timestamp;
+    // Returns the state of the last of count reserved ids
+    private long reserve(int count) {
+        while (true) {
+            long current = state.get();
+            if ((current & RETIRED) != 0) {
+                throw new IllegalStateException("Snowflake worker id " + machineId + " was released");
+            }
+            long now = clock.getAsLong() - EPOCH;
+            long first = Math.max(current + 1, now << SEQUENCE_BITS);
+            long last = first + count - 1;
 
-        return ((timestamp - EPOCH) << TIMESTAMP_SHIFT)
-                | (machineId << MACHINE_ID_SHIFT)
-                | sequence;
+            long excess = (last >>> SEQUENCE_BITS) - now - MAX_AHEAD_MILLIS;
+            if (excess > MAX_WAIT_MILLIS) {
+                throw new IllegalStateException("Clock moved backwards: Snowflake ids would run "
+                        + (excess + MAX_AHEAD_MILLIS) + " ms ahead of it");
+            }
+            if (excess > 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(excess));
+                continue;
+            }
+            if (state.compareAndSet(current, last)) {
+                return last;
+            }
+        }
     }
 
-    private long waitNextMillis(long currentMillis) {
-        while (currentMillis == lastTimestamp) {
-            currentMillis = currentTime();
-        }
-        return currentMillis;
+    // Stops issuing ids (later calls throw) and returns the timestamp (epoch millis) of the last issued
+    // id, or the floor if there was none: the exact high-water mark for whoever takes the worker id next
+    public long retire() {
+        long last = state.getAndUpdate(current -> current | RETIRED) & ~RETIRED;
+        return (last >>> SEQUENCE_BITS) + EPOCH;
+    }
+
+    private long toId(long state) {
+        return ((state >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT)
+                | (machineId << MACHINE_ID_SHIFT)
+                | (state & MAX_SEQUENCE);
     }
 
-    private long currentTime() {
-        return System.currentTimeMillis();
+    public long getMachineId() {
+        return machineId;
     }
 }
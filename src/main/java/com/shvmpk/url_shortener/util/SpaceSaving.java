@@ -0,0 +1,77 @@
+package com.shvmpk.url_shortener.util;
+
+import java.util.*;
+
+/*
+ * Space-Saving heavy-hitter summary (Metwally et al.) over string keys with a fixed number of
+ * counters. A new key arriving when all counters are taken replaces the smallest one and inherits its
+ * count as error, so for every tracked key count - error <= true count <= count, and any key with a
+ * true count above total / capacity is guaranteed to be tracked. Updates are O(log capacity).
+ * Not thread-safe.
+ */
+public class SpaceSaving {
+    public record Counter(String key, long count, long error) {}
+
+    private static final class Slot {
+        final String key;
+        long count;
+        long error;
+
+        Slot(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    private static final Comparator<Slot> BY_COUNT =
+            Comparator.<Slot>comparingLong(slot -> slot.count).thenComparing(slot -> slot.key);
+
+    private final int capacity;
+    private final Map<String, Slot> slots;
+    private final TreeSet<Slot> ordered = new TreeSet<>(BY_COUNT);
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        this.slots = new HashMap<>(capacity * 2);
+    }
+
+    public void add(String key, long count) {
+        Slot slot = slots.get(key);
+        if (slot != null) {
+            ordered.remove(slot);
+            slot.count += count;
+            ordered.add(slot);
+            return;
+        }
+        if (slots.size() < capacity) {
+            slot = new Slot(key, count, 0);
+        } else {
+            Slot evicted = ordered.pollFirst();
+            slots.remove(evicted.key);
+            slot = new Slot(key, evicted.count + count, evicted.count);
+        }
+        slots.put(key, slot);
+        ordered.add(slot);
+    }
+
+    // Upper bound for any key that is not tracked
+    public long minCount() {
+        return slots.size() < capacity ? 0 : ordered.first().count;
+    }
+
+    public Counter get(String key) {
+        Slot slot = slots.get(key);
+        return slot != null ? new Counter(slot.key, slot.count, slot.error) : null;
+    }
+
+    public Set<String> keys() {
+        return Collections.unmodifiableSet(slots.keySet());
+    }
+
+    public void clear() {
+        slots.clear();
+        ordered.clear();
+    }
+}
@@ -2,7 +2,6 @@ package com.shvmpk.url_shortener.util;
 
 import java.net.*;
 import java.util.*;
-import java.io.*;
 
 public class UrlUtils {
 
@@ -17,19 +16,6 @@ public class UrlUtils {
         }
     }
 
-    public static boolean isReachable(String urlStr) {
-        try {
-            HttpURLConnection connection = (HttpURLConnection) new URL(urlStr).openConnection();
-            connection.setRequestMethod("HEAD");
-            connection.setConnectTimeout(3000);
-            connection.setReadTimeout(3000);
-            int responseCode = connection.getResponseCode();
-            return (200 <= responseCode && responseCode < 400);
-        } catch (IOException e) {
-            return false;
-        }
-    }
-
     public static String normalize(String inputUrl) {
         try {
             URL url = new URL(inputUrl.trim());
@@ -58,4 +44,15 @@ public class UrlUtils {
             throw new IllegalArgumentException("Invalid URL format for normalization");
         }
     }
-}
\ No newline at end of file
+
+    // Lower-cased host of a Referer header; "direct" when absent or unparseable
+    public static String referrerHost(String referer) {
+        if (referer == null || referer.isBlank()) return "direct";
+        try {
+            String host = URI.create(referer.trim()).getHost();
+            return host != null ? host.toLowerCase() : "direct";
+        } catch (IllegalArgumentException e) {
+            return "direct";
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.shvmpk.url_shortener.util;
+
+import java.util.*;
+
+/*
+ * Top-K over a sliding time window: a ring of time slices, each with a SpaceSaving summary and,
+ * optionally, a CountMinSketch. A slice is reset lazily when the ring wraps onto it.
+ *
+ * A query takes the union of the tracked keys of the slices in the window and bounds each key's
+ * count from above by the smaller of the summed SpaceSaving upper bounds and the summed sketch
+ * estimates, and from below by the summed guaranteed SpaceSaving counts. Memory is fixed by
+ * slices x (capacity + sketch), independent of traffic. Thread-safe.
+ */
+public class WindowedTopK {
+    public record Entry(String key, long count, long maxError) {}
+
+    private final long sliceMillis;
+    private final long[] sliceIds;
+    private final SpaceSaving[] summaries;
+    private final CountMinSketch[] sketches;
+
+    // sketchWidth 0 disables the sketches
+    public WindowedTopK(long windowMillis, int slices, int capacity, int sketchWidth, int sketchDepth) {
+        this.sliceMillis = Math.max(1, windowMillis / slices);
+        this.sliceIds = new long[slices];
+        Arrays.fill(sliceIds, Long.MIN_VALUE);
+        this.summaries = new SpaceSaving[slices];
+        this.sketches = sketchWidth > 0 ? new CountMinSketch[slices] : null;
+        for (int i = 0; i < slices; i++) {
+            summaries[i] = new SpaceSaving(capacity);
+            if (sketches != null) sketches[i] = new CountMinSketch(sketchWidth, sketchDepth);
+        }
+    }
+
+    public synchronized void add(String key, long count, long atMillis, long nowMillis) {
+        long slice = Math.floorDiv(atMillis, sliceMillis);
+        if (slice <= Math.floorDiv(nowMillis, sliceMillis) - sliceIds.length) return; // older than the window
+
+        int index = (int) Math.floorMod(slice, sliceIds.length);
+        if (sliceIds[index] != slice) {
+            sliceIds[index] = slice;
+            summaries[index].clear();
+            if (sketches != null) sketches[index].clear();
+        }
+        summaries[index].add(key, count);
+        if (sketches != null) sketches[index].add(key, count);
+    }
+
+    // Top `limit` keys of the last `windowMillis` (at most the full window), highest first
+    public synchronized List<Entry> top(int limit, long windowMillis, long nowMillis) {
+        long newest = Math.floorDiv(nowMillis, sliceMillis);
+        long slicesWanted = Math.min(sliceIds.length, Math.max(1, (windowMillis + sliceMillis - 1) / sliceMillis));
+        long oldest = newest - slicesWanted + 1;
+
+        List<Integer> live = new ArrayList<>();
+        Set<String> candidates = new HashSet<>();
+        for (int i = 0; i < sliceIds.length; i++) {
+            if (sliceIds[i] >= oldest && sliceIds[i] <= newest) {
+                live.add(i);
+                candidates.addAll(summaries[i].keys());
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>(candidates.size());
+        for (String key : candidates) {
+            long upper = 0;
+            long lower = 0;
+            long sketched = 0;
+            for (int i : live) {
+                SpaceSaving.Counter counter = summaries[i].get(key);
+                if (counter != null) {
+                    upper += counter.count();
+                    lower += counter.count() - counter.error();
+                } else {
+                    upper += summaries[i].minCount();
+                }
+                if (sketches != null) sketched += sketches[i].estimate(key);
+            }
+            long estimate = sketches != null ? Math.min(upper, sketched) : upper;
+            entries.add(new Entry(key, estimate, estimate - lower));
+        }
+
+        entries.sort(Comparator.comparingLong(Entry::count).reversed().thenComparing(Entry::key));
+        return entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries;
+    }
+
+    public long windowMillis() {
+        return sliceMillis * sliceIds.length;
+    }
+}
@@ -0,0 +1,63 @@
+-- Canonical lookup keys for short_code (see LookupKeys): exact-match short_code, lower-case alias_key
+-- and original_url_hash, each behind a B-tree index.
+--
+-- Only needed for databases that are not recreated by spring.jpa.hibernate.ddl-auto=create. Run it
+-- after deploying the version that writes the keys, with ddl-auto set to none or validate. It is safe
+-- to re-run, and it must not be wrapped in a transaction (CREATE INDEX CONCURRENTLY, batched COMMITs):
+--
+--   psql "$DATABASE_URL" -v ON_ERROR_STOP=1 -f src/main/resources/db/canonical-lookup-keys.sql
+
+ALTER TABLE short_code ADD COLUMN IF NOT EXISTS alias_key varchar(255);
+ALTER TABLE short_code ADD COLUMN IF NOT EXISTS original_url_hash varchar(32);
+
+-- Backfill in id ranges so no transaction locks the whole table. md5() yields the same lower-case
+-- hex digest as LookupKeys.urlHash.
+DO $$
+DECLARE
+    lo   bigint;
+    hi   bigint;
+    step constant bigint := 50000;
+BEGIN
+    SELECT min(id), max(id) INTO lo, hi FROM short_code;
+    WHILE lo <= hi LOOP
+        UPDATE short_code
+           SET alias_key = lower(alias),
+               original_url_hash = md5(original_url)
+         WHERE id >= lo AND id < lo + step
+           AND (original_url_hash IS DISTINCT FROM md5(original_url) OR alias_key IS DISTINCT FROM lower(alias));
+        COMMIT;
+        lo := lo + step;
+    END LOOP;
+END $$;
+
+-- The old unique constraint on alias was case-sensitive. Aliases listed here differ only in case and
+-- must be renamed before ux_short_code_alias_key can be built.
+SELECT alias_key, array_agg(short_code ORDER BY id) AS short_codes
+  FROM short_code
+ WHERE alias_key IS NOT NULL
+ GROUP BY alias_key
+HAVING count(*) > 1;
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS ux_short_code_short_code ON short_code (short_code);
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS ux_short_code_alias_key ON short_code (alias_key);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_short_code_original_url_hash ON short_code (original_url_hash);
+
+ALTER TABLE short_code ALTER COLUMN short_code SET NOT NULL;
+
+-- Uniqueness of aliases is now enforced on alias_key; drop the generated single-column constraint on alias
+DO $$
+DECLARE
+    name text;
+BEGIN
+    FOR name IN
+        SELECT con.conname
+          FROM pg_constraint con
+          JOIN pg_attribute att ON att.attrelid = con.conrelid AND att.attnum = con.conkey[1]
+         WHERE con.conrelid = 'short_code'::regclass
+           AND con.contype = 'u'
+           AND cardinality(con.conkey) = 1
+           AND att.attname = 'alias'
+    LOOP
+        EXECUTE format('ALTER TABLE short_code DROP CONSTRAINT %I', name);
+    END LOOP;
+END $$;
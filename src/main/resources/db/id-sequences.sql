@@ -0,0 +1,36 @@
+-- Sequence ids for short_code and url_version (short_code_seq / url_version_seq, allocationSize 50)
+-- in place of the IDENTITY columns of earlier versions, so Hibernate can batch inserts.
+--
+-- Only needed for databases that are not recreated by spring.jpa.hibernate.ddl-auto=create. Run it
+-- while no instance is writing: after stopping the version that inserts through IDENTITY, before
+-- starting the one that uses the sequences. Safe to re-run:
+--
+--   psql "$DATABASE_URL" -v ON_ERROR_STOP=1 -f src/main/resources/db/id-sequences.sql
+
+DO $$
+DECLARE
+    tbl         text;
+    seq         text;
+    start_value bigint;
+    last_value  bigint;
+BEGIN
+    FOREACH tbl IN ARRAY ARRAY['short_code', 'url_version'] LOOP
+        seq := tbl || '_seq';
+
+        -- Ids now come from the application; the column keeps no generator of its own
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', tbl);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP DEFAULT', tbl);
+
+        -- Hibernate's pooled optimizer hands out v - 49 .. v for a sequence value v, so the first
+        -- value must exceed max(id) + 50
+        EXECUTE format('SELECT coalesce(max(id), 0) + 51 FROM %I', tbl) INTO start_value;
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I INCREMENT 50 START %s', seq, start_value);
+        EXECUTE format('ALTER SEQUENCE %I INCREMENT 50', seq);
+
+        -- A sequence created earlier (e.g. by ddl-auto=update) starts at 1 and would collide
+        EXECUTE format('SELECT last_value FROM %I', seq) INTO last_value;
+        IF last_value < start_value THEN
+            PERFORM setval(seq, start_value, false);
+        END IF;
+    END LOOP;
+END $$;
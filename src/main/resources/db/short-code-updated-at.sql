@@ -0,0 +1,29 @@
+-- short_code.updated_at, read by ExistenceFilterService to catch up after loading its checkpoint and
+-- on every periodic sync.
+--
+-- Only needed for databases that are not recreated by spring.jpa.hibernate.ddl-auto=create. Safe to
+-- re-run; must not be wrapped in a transaction (CREATE INDEX CONCURRENTLY, batched COMMITs):
+--
+--   psql "$DATABASE_URL" -v ON_ERROR_STOP=1 -f src/main/resources/db/short-code-updated-at.sql
+
+ALTER TABLE short_code ADD COLUMN IF NOT EXISTS updated_at timestamp(6);
+
+-- Existing rows start at their creation time, in id ranges like canonical-lookup-keys.sql
+DO $$
+DECLARE
+    lo   bigint;
+    hi   bigint;
+    step constant bigint := 50000;
+BEGIN
+    SELECT min(id), max(id) INTO lo, hi FROM short_code;
+    WHILE lo <= hi LOOP
+        UPDATE short_code
+           SET updated_at = coalesce(created_at, now())
+         WHERE id >= lo AND id < lo + step
+           AND updated_at IS NULL;
+        COMMIT;
+        lo := lo + step;
+    END LOOP;
+END $$;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_short_code_updated_at ON short_code (updated_at);
@@ -0,0 +1,104 @@
+-- Single round trip for the redirect path.
+--
+-- KEYS[1] = link:<code>          (hash written by CachedShortCodeCodec)
+-- KEYS[2] = visitors:<code>      (SET of hashed visitor ids)
+-- KEYS[3] = visitors-hll:<code>  (HyperLogLog of hashed visitor ids)
+-- KEYS[4] = clicks:<code>        (granted unique visits of a click-limited link)
+-- ARGV[1] = hashed visitor id
+-- ARGV[2] = now, epoch millis
+-- ARGV[3] = visitor / clicks key TTL, seconds
+-- ARGV[4] = '1' when the caller has no link record yet (L1 miss): the hash is required and returned
+-- ARGV[5] = 'set' for exact counting, 'hll' for approximate counting (links without a click limit)
+--
+-- Reply: { status, changed, visitorCount, approximate [, field, value, ...] }
+--   status 0 = link not cached, 1 = ok, 2 = expired, 3 = click limit reached, 4 = disabled
+--   changed is 1 when the visitor was new to the SET, or changed the HyperLogLog
+--   visitorCount is the link's current unique visitor count, or -1 when unknown
+--   approximate is 1 when the link is counted with the HyperLogLog
+--
+-- In HLL mode PFADD only reports whether the sketch changed, which says little about a single
+-- visitor once the link is large; the count is therefore re-read with PFCOUNT whenever the sketch
+-- changes and stored as the absolute value (never lower than the count seeded from the DB).
+--
+-- Click-limited links are enforced against clicks:<code> rather than the hash's uv field: the hash is
+-- rebuilt from Postgres whenever it is evicted, while the counter is seeded once (SET NX semantics)
+-- and then only ever incremented here. They are always counted in the SET, whatever the mode: a
+-- PFCOUNT estimate could overshoot a large limit, and denied visitors are never added, so the SET
+-- holds at most maxClicks members. Scripts run serially, so a limit of N grants exactly N visits.
+
+local fetch = ARGV[4] == '1'
+local hll = ARGV[5] == 'hll'
+local exists = redis.call('EXISTS', KEYS[1]) == 1
+
+if fetch and not exists then
+    return { 0, 0, -1, 0 }
+end
+
+local function reply(status, added, count)
+    local result = { status, added, count, hll and 1 or 0 }
+    if fetch then
+        local fields = redis.call('HGETALL', KEYS[1])
+        for i = 1, #fields do
+            result[#result + 1] = fields[i]
+        end
+    end
+    return result
+end
+
+local uv = -1
+local limited = false
+if exists then
+    local fields = redis.call('HMGET', KEYS[1], 'exp', 'max', 'uv', 'dis')
+    local exp, max = fields[1], fields[2]
+    uv = tonumber(fields[3] or '0')
+
+    if fields[4] == '1' then
+        return reply(4, 0, uv)
+    end
+
+    if exp and tonumber(exp) < tonumber(ARGV[2]) then
+        return reply(2, 0, uv)
+    end
+
+    if max then
+        limited = true
+        hll = false
+
+        local granted = redis.call('GET', KEYS[4])
+        if granted then
+            uv = tonumber(granted)
+        else
+            redis.call('SET', KEYS[4], uv, 'EX', ARGV[3])
+        end
+
+        if uv >= tonumber(max) then
+            return reply(3, 0, uv)
+        end
+    end
+end
+
+local added
+if hll then
+    added = redis.call('PFADD', KEYS[3], ARGV[1])
+    if added == 1 then
+        redis.call('EXPIRE', KEYS[3], ARGV[3])
+        uv = math.max(uv, redis.call('PFCOUNT', KEYS[3]))
+    end
+else
+    added = redis.call('SADD', KEYS[2], ARGV[1])
+    if added == 1 then
+        redis.call('EXPIRE', KEYS[2], ARGV[3])
+        if limited then
+            uv = redis.call('INCR', KEYS[4])
+            redis.call('EXPIRE', KEYS[4], ARGV[3])
+        elseif exists then
+            uv = uv + 1
+        end
+    end
+end
+
+if added == 1 and exists then
+    redis.call('HSET', KEYS[1], 'uv', uv)
+end
+
+return reply(1, added, uv)
@@ -0,0 +1,25 @@
+-- Claims a Snowflake worker id (see WorkerIdLeaseService).
+--
+-- KEYS[1] = <prefix><id>             (lease: owner token, expires unless renewed)
+-- KEYS[2] = <prefix><id>:high-water  (newest timestamp, epoch millis, any holder of the id may have used)
+-- ARGV[1] = owner token
+-- ARGV[2] = lease TTL, millis
+-- ARGV[3] = high-water mark of the new holder
+-- ARGV[4] = highest previous mark the new holder can start above without waiting (now + max ahead)
+--
+-- Reply: the previous high-water mark (0 if the id was never used) when the lease was taken,
+--        -1 when another node holds it or its mark is still ahead of ARGV[4]
+
+local previous = tonumber(redis.call('GET', KEYS[2]) or '0')
+if previous > tonumber(ARGV[4]) then
+    return -1
+end
+
+if not redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+    return -1
+end
+
+if tonumber(ARGV[3]) > previous then
+    redis.call('SET', KEYS[2], ARGV[3])
+end
+return previous
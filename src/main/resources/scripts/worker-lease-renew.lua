@@ -0,0 +1,27 @@
+-- Heartbeat for a Snowflake worker id lease (see WorkerIdLeaseService).
+--
+-- KEYS[1] = <prefix><id>             (lease)
+-- KEYS[2] = <prefix><id>:high-water
+-- ARGV[1] = owner token
+-- ARGV[2] = lease TTL, millis; 0 releases the lease instead
+-- ARGV[3] = high-water mark: newest timestamp the holder may use until its next heartbeat; on release
+--           the timestamp of its last id, which replaces the mark set by earlier heartbeats
+--
+-- Reply: 1 when the caller still held the lease, 0 when it expired or another node took it
+
+if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+    return 0
+end
+
+if ARGV[2] == '0' then
+    redis.call('SET', KEYS[2], ARGV[3])
+    redis.call('DEL', KEYS[1])
+    return 1
+end
+
+local previous = tonumber(redis.call('GET', KEYS[2]) or '0')
+if tonumber(ARGV[3]) > previous then
+    redis.call('SET', KEYS[2], ARGV[3])
+end
+redis.call('PEXPIRE', KEYS[1], ARGV[2])
+return 1
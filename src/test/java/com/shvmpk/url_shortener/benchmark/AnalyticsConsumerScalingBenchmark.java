@@ -0,0 +1,134 @@
+package com.shvmpk.url_shortener.benchmark;
+
+import com.shvmpk.url_shortener.dto.AnalyticsEvent;
+import com.shvmpk.url_shortener.kafka.consumer.AnalyticsEventConsumer;
+import com.shvmpk.url_shortener.kafka.serde.AnalyticsEventDeserializer;
+import com.shvmpk.url_shortener.kafka.serde.AnalyticsEventSerializer;
+import com.shvmpk.url_shortener.service.AnalyticsAggregationService;
+import com.shvmpk.url_shortener.service.AnalyticsStateStore;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/*
+ * Analytics consumer throughput with 1..N concurrent listener containers on an embedded Kafka broker.
+ *
+ * Events are produced keyed by short code in the binary AnalyticsEventCodec format, exactly like
+ * KafkaAnalyticsProducer, and consumed through AnalyticsEventDeserializer and AnalyticsEventConsumer
+ * in batch mode. The database write is replaced by a fixed delay per batch
+ * (-Dbench.writeMillis) so the numbers show how partition-parallel consumers hide write latency.
+ *
+ * Run: mvn test-compile && java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *          -Dbench.events=200000 -Dbench.partitions=8 -Dbench.writeMillis=5 \
+ *          com.shvmpk.url_shortener.benchmark.AnalyticsConsumerScalingBenchmark
+ */
+public class AnalyticsConsumerScalingBenchmark {
+    private static final String TOPIC = "analytics-events";
+
+    public static void main(String[] args) throws Exception {
+        int events = Integer.getInteger("bench.events", 200_000);
+        int links = Integer.getInteger("bench.links", 10_000);
+        int partitions = Integer.getInteger("bench.partitions", 8);
+        long writeMillis = Long.getLong("bench.writeMillis", 5);
+
+        EmbeddedKafkaKraftBroker broker = new EmbeddedKafkaKraftBroker(1, partitions, TOPIC);
+        broker.afterPropertiesSet();
+        try {
+            produce(broker.getBrokersAsString(), events, links);
+            System.out.printf("%d events, %d links, %d partitions, %d ms per batch write%n",
+                    events, links, partitions, writeMillis);
+            System.out.printf("%-10s %12s %12s%n", "consumers", "events/s", "batches");
+            for (int consumers = 1; consumers <= partitions; consumers *= 2) {
+                run(broker.getBrokersAsString(), consumers, events, writeMillis);
+            }
+        } finally {
+            broker.destroy();
+        }
+    }
+
+    private static void produce(String brokers, int events, int links) {
+        Map<String, Object> config = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, brokers,
+                ProducerConfig.LINGER_MS_CONFIG, 5,
+                ProducerConfig.BATCH_SIZE_CONFIG, 64 * 1024);
+        try (KafkaProducer<String, AnalyticsEvent> producer =
+                     new KafkaProducer<>(config, new StringSerializer(), new AnalyticsEventSerializer())) {
+            for (int i = 0; i < events; i++) {
+                String code = "code" + ThreadLocalRandom.current().nextInt(links);
+                AnalyticsEvent event = AnalyticsEvent.builder()
+                        .shortCode(code)
+                        .accessDate(LocalDate.now())
+                        .totalVisitCount(1)
+                        .userAgent("Mozilla/5.0 (X11; Linux x86_64; rv:128.0) Gecko/20100101 Firefox/128.0")
+                        .referer("https://news.example.com/")
+                        .country("Germany")
+                        .lastAccessTime(Instant.now())
+                        .build();
+                producer.send(new ProducerRecord<>(TOPIC, code, event));
+            }
+            producer.flush();
+        }
+    }
+
+    private static void run(String brokers, int consumers, int events, long writeMillis) throws Exception {
+        AtomicLong consumed = new AtomicLong();
+        AtomicLong batches = new AtomicLong();
+        // Measured from the first delivered batch, so consumer group joins are not counted
+        AtomicLong start = new AtomicLong();
+
+        AnalyticsAggregationService aggregationService = mock(AnalyticsAggregationService.class);
+        doAnswer(invocation -> {
+            Map<Integer, List<AnalyticsEvent>> byPartition = invocation.getArgument(0);
+            start.compareAndSet(0, System.nanoTime());
+            TimeUnit.MILLISECONDS.sleep(writeMillis);
+            byPartition.values().forEach(list -> consumed.addAndGet(list.size()));
+            batches.incrementAndGet();
+            return null;
+        }).when(aggregationService).applyBatch(anyMap());
+        AnalyticsEventConsumer listener = new AnalyticsEventConsumer(aggregationService, mock(AnalyticsStateStore.class));
+
+        DefaultKafkaConsumerFactory<String, AnalyticsEvent> consumerFactory = new DefaultKafkaConsumerFactory<>(
+                Map.of(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, brokers,
+                        ConsumerConfig.GROUP_ID_CONFIG, "bench-" + consumers + "-" + System.nanoTime(),
+                        ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+                        ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500),
+                new StringDeserializer(), new AnalyticsEventDeserializer());
+
+        ContainerProperties containerProperties = new ContainerProperties(TOPIC);
+        containerProperties.setAckMode(ContainerProperties.AckMode.BATCH);
+        containerProperties.setMessageListener((BatchMessageListener<String, AnalyticsEvent>) listener::consume);
+
+        ConcurrentMessageListenerContainer<String, AnalyticsEvent> container =
+                new ConcurrentMessageListenerContainer<>(consumerFactory, containerProperties);
+        container.setConcurrency(consumers);
+
+        container.start();
+        while (consumed.get() < events) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        double seconds = (System.nanoTime() - start.get()) / 1e9;
+        container.stop();
+
+        System.out.printf("%-10d %12.0f %12d%n", consumers, events / seconds, batches.get());
+    }
+}
@@ -0,0 +1,117 @@
+package com.shvmpk.url_shortener.benchmark;
+
+import com.shvmpk.url_shortener.dto.AnalyticsEvent;
+import com.shvmpk.url_shortener.kafka.serde.AnalyticsEventDeserializer;
+import com.shvmpk.url_shortener.kafka.serde.AnalyticsEventSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * analytics-events value cost: the old JsonSerializer payload (pre-aggregated maps and counters)
+ * vs the AnalyticsEventCodec binary payload. Bytes per event are printed during setup.
+ *
+ * Run: mvn test-compile && java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *          com.shvmpk.url_shortener.benchmark.AnalyticsEventSerdeBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnalyticsEventSerdeBenchmark {
+    private static final String TOPIC = "analytics-events";
+
+    private JsonSerializer<AnalyticsEvent> jsonSerializer;
+    private JsonDeserializer<AnalyticsEvent> jsonDeserializer;
+    private AnalyticsEventSerializer binarySerializer;
+    private AnalyticsEventDeserializer binaryDeserializer;
+
+    private AnalyticsEvent legacyEvent;
+    private AnalyticsEvent binaryEvent;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setup() {
+        jsonSerializer = new JsonSerializer<>();
+        jsonSerializer.setAddTypeInfo(false);
+        jsonDeserializer = new JsonDeserializer<>(AnalyticsEvent.class, false);
+        binarySerializer = new AnalyticsEventSerializer();
+        binaryDeserializer = new AnalyticsEventDeserializer();
+
+        Instant now = Instant.now();
+        String userAgent = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) "
+                + "Chrome/126.0.0.0 Safari/537.36";
+
+        binaryEvent = AnalyticsEvent.builder()
+                .shortCode("bXk3Pq9Za")
+                .accessDate(LocalDate.now())
+                .lastAccessTime(now)
+                .userAgent(userAgent)
+                .referer("https://news.example.com/article/42")
+                .utmSource("newsletter")
+                .utmMedium("email")
+                .utmCampaign("spring")
+                .country("India")
+                .city("Pune")
+                .region("Maharashtra")
+                .continent("Asia")
+                .latitude(18.5204)
+                .longitude(73.8567)
+                .build();
+
+        // What KafkaAnalyticsProducer used to send for the same click
+        legacyEvent = binaryDeserializer.deserialize(TOPIC, binarySerializer.serialize(TOPIC, binaryEvent));
+        legacyEvent.setTotalVisitCount(1);
+        legacyEvent.setBrowserVisitCounts(Map.of("Chrome", 1));
+        legacyEvent.setDeviceTypeVisitCounts(Map.of("Personal computer", 1));
+        legacyEvent.setOsVisitCounts(Map.of("Windows", 1));
+        legacyEvent.setBrowserLastSeen(Map.of("Chrome", now));
+        legacyEvent.setDeviceLastSeen(Map.of("Personal computer", now));
+        legacyEvent.setBrowser("Chrome");
+        legacyEvent.setOs("Windows");
+        legacyEvent.setDeviceType("Personal computer");
+        legacyEvent.setIsBot(false);
+
+        jsonBytes = jsonSerializer.serialize(TOPIC, legacyEvent);
+        binaryBytes = binarySerializer.serialize(TOPIC, binaryEvent);
+        System.out.printf("%nbytes/event: json=%d binary=%d%n", jsonBytes.length, binaryBytes.length);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return jsonSerializer.serialize(TOPIC, legacyEvent);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return binarySerializer.serialize(TOPIC, binaryEvent);
+    }
+
+    @Benchmark
+    public AnalyticsEvent jsonDeserialize() {
+        return jsonDeserializer.deserialize(TOPIC, jsonBytes);
+    }
+
+    @Benchmark
+    public AnalyticsEvent binaryDeserialize() {
+        return binaryDeserializer.deserialize(TOPIC, binaryBytes);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(AnalyticsEventSerdeBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
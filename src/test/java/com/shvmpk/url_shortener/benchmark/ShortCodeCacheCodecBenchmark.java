@@ -0,0 +1,80 @@
+package com.shvmpk.url_shortener.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.shvmpk.url_shortener.dto.CachedShortCode;
+import com.shvmpk.url_shortener.model.ShortCode;
+import com.shvmpk.url_shortener.util.CachedShortCodeCodec;
+import com.shvmpk.url_shortener.util.PasswordUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cache-hit decode cost: old shortKey:<code> JSON (ObjectMapper.readValue(..., ShortCode.class))
+ * vs the link:<code> hash decoded by CachedShortCodeCodec.
+ *
+ * Run: mvn test-compile && java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *          com.shvmpk.url_shortener.benchmark.ShortCodeCacheCodecBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShortCodeCacheCodecBenchmark {
+    private ObjectMapper objectMapper;
+    private String json;
+    private Map<Object, Object> hash;
+
+    @Setup
+    public void setup() throws Exception {
+        // Same modules / features as the Spring Boot auto-configured mapper used by UrlService
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        ShortCode entity = ShortCode.builder()
+                .id(123456789L)
+                .shortCode("bXk3Pq9Za")
+                .alias("spring-campaign")
+                .originalUrl("https://example.com/landing/spring-campaign?utm_source=newsletter&utm_medium=email")
+                .isProtected(true)
+                .isPasswordAutoGenerated(false)
+                .password(PasswordUtil.hashPassword("S3cret!pass"))
+                .expiresAt(LocalDateTime.now().plusDays(7))
+                .uniqueVisitorCount(4821)
+                .isClickBased(false)
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        json = objectMapper.writeValueAsString(entity);
+        hash = new HashMap<>(CachedShortCodeCodec.toHash(CachedShortCode.from(entity)));
+    }
+
+    @Benchmark
+    public ShortCode jacksonShortCode() throws Exception {
+        return objectMapper.readValue(json, ShortCode.class);
+    }
+
+    @Benchmark
+    public CachedShortCode hashCodec() {
+        return CachedShortCodeCodec.fromHash(hash);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(ShortCodeCacheCodecBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,102 @@
+package com.shvmpk.url_shortener.benchmark;
+
+import com.shvmpk.url_shortener.util.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/*
+ * Snowflake id throughput at 1..64 threads: the CAS-based SnowflakeIdGenerator vs the previous
+ * lock-based generator (ReentrantLock, spinning until the next millisecond when the sequence runs
+ * out), reproduced below as the baseline. Both share one instance across all threads, like the
+ * ShortUrlGenerator bean.
+ *
+ * Both read a clock that ticks every microsecond instead of every millisecond. With the real clock
+ * either generator is capped at 4096 ids/ms, and the numbers would show that cap rather than the cost
+ * of coordinating threads.
+ *
+ * Run: mvn test-compile && java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *          com.shvmpk.url_shortener.benchmark.SnowflakeIdGeneratorBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnowflakeIdGeneratorBenchmark {
+    private SnowflakeIdGenerator casGenerator;
+    private LockBasedGenerator lockGenerator;
+
+    @Setup
+    public void setup() {
+        long base = System.currentTimeMillis();
+        long start = System.nanoTime();
+        LongSupplier microsecondClock = () -> base + (System.nanoTime() - start) / 1_000;
+        casGenerator = new SnowflakeIdGenerator(42, 0, microsecondClock);
+        lockGenerator = new LockBasedGenerator(42, microsecondClock);
+    }
+
+    @Benchmark
+    public long cas() {
+        return casGenerator.nextId();
+    }
+
+    @Benchmark
+    public long lock() {
+        return lockGenerator.nextId();
+    }
+
+    // The generator before the CAS rewrite
+    static final class LockBasedGenerator {
+        private static final long EPOCH = 1609459200000L;
+        private static final long MAX_SEQUENCE = 4095;
+
+        private final long machineId;
+        private final LongSupplier clock;
+        private final ReentrantLock lock = new ReentrantLock();
+        private long lastTimestamp = -1L;
+        private long sequence = 0L;
+
+        LockBasedGenerator(long machineId, LongSupplier clock) {
+            this.machineId = machineId;
+            this.clock = clock;
+        }
+
+        long nextId() {
+            lock.lock();
+            try {
+                long timestamp = clock.getAsLong();
+                if (timestamp == lastTimestamp) {
+                    sequence = (sequence + 1) & MAX_SEQUENCE;
+                    if (sequence == 0) {
+                        while (timestamp == lastTimestamp) {
+                            timestamp = clock.getAsLong();
+                        }
+                    }
+                } else {
+                    sequence = 0;
+                }
+                lastTimestamp = timestamp;
+                return ((timestamp - EPOCH) << 22) | (machineId << 12) | sequence;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int threads = 1; threads <= 64; threads *= 2) {
+            Options options = new OptionsBuilder()
+                    .include(SnowflakeIdGeneratorBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
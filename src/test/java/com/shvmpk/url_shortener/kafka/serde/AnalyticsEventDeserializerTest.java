@@ -0,0 +1,79 @@
+package com.shvmpk.url_shortener.kafka.serde;
+
+import com.shvmpk.url_shortener.dto.AnalyticsEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AnalyticsEventDeserializerTest {
+    private static final String TOPIC = "analytics-events";
+
+    private final AnalyticsEventSerializer serializer = new AnalyticsEventSerializer();
+    private final AnalyticsEventDeserializer deserializer = new AnalyticsEventDeserializer();
+
+    @Test
+    void binaryEventRoundTrips() {
+        AnalyticsEvent event = AnalyticsEvent.builder()
+                .shortCode("bXk3Pq9Za")
+                .accessDate(LocalDate.of(2025, 6, 1))
+                .lastAccessTime(Instant.ofEpochMilli(1_748_779_200_123L))
+                .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) Chrome/126.0 Safari/537.36")
+                .referer("https://news.example.com/ünïcode")
+                .utmSource("newsletter")
+                .country("India")
+                .city("Pune")
+                .latitude(18.5204)
+                .longitude(-73.8567)
+                .build();
+
+        byte[] bytes = serializer.serialize(TOPIC, event);
+
+        assertThat(bytes[0]).isEqualTo((byte) 1);
+        assertThat(deserializer.deserialize(TOPIC, bytes)).isEqualTo(event);
+    }
+
+    @Test
+    void absentFieldsStayNull() {
+        AnalyticsEvent event = AnalyticsEvent.builder().shortCode("abc").build();
+
+        AnalyticsEvent decoded = deserializer.deserialize(TOPIC, serializer.serialize(TOPIC, event));
+
+        assertThat(decoded.getShortCode()).isEqualTo("abc");
+        assertThat(decoded.getAccessDate()).isNull();
+        assertThat(decoded.getLatitude()).isNull();
+        assertThat(decoded.getUserAgent()).isNull();
+    }
+
+    @Test
+    void legacyJsonEventIsStillRead() {
+        String json = """
+                {"shortCode":"abc","accessDate":"2025-06-01","totalVisitCount":1,
+                 "browserVisitCounts":{"Chrome":1},"country":"India"}
+                """;
+
+        AnalyticsEvent decoded = deserializer.deserialize(TOPIC, json.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(decoded.getShortCode()).isEqualTo("abc");
+        assertThat(decoded.getAccessDate()).isEqualTo(LocalDate.of(2025, 6, 1));
+        assertThat(decoded.getBrowserVisitCounts()).containsEntry("Chrome", 1);
+        assertThat(decoded.getCountry()).isEqualTo("India");
+    }
+
+    @Test
+    void unknownVersionIsRejected() {
+        assertThatThrownBy(() -> deserializer.deserialize(TOPIC, new byte[]{9, 0}))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void nullPayloadIsNull() {
+        assertThat(deserializer.deserialize(TOPIC, null)).isNull();
+        assertThat(serializer.serialize(TOPIC, null)).isNull();
+    }
+}
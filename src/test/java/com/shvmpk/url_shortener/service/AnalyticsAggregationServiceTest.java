@@ -0,0 +1,205 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.config.AnalyticsConsumerProperties;
+import com.shvmpk.url_shortener.config.AnalyticsStorageProperties;
+import com.shvmpk.url_shortener.config.UserAgentCacheProperties;
+import com.shvmpk.url_shortener.dto.AnalyticsEvent;
+import com.shvmpk.url_shortener.model.Analytics;
+import com.shvmpk.url_shortener.model.ShortCode;
+import com.shvmpk.url_shortener.repository.AnalyticsRepository;
+import com.shvmpk.url_shortener.repository.UrlRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.hibernate.jdbc.Work;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AnalyticsAggregationServiceTest {
+    private static final String FIREFOX = "Mozilla/5.0 (X11; Linux x86_64; rv:128.0) Gecko/20100101 Firefox/128.0";
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private AnalyticsRepository analyticsRepository;
+    private UrlRepository urlRepository;
+    private StatelessSession session;
+    private AnalyticsStateStore stateStore;
+    private EntityManagerFactory entityManagerFactory;
+    private AnalyticsConsumerProperties properties;
+    private AnalyticsAggregationService service;
+
+    private final ShortCode first = ShortCode.builder().id(1L).shortCode("AbC123").originalUrl("https://a.example").build();
+    private final ShortCode second = ShortCode.builder().id(2L).shortCode("xyz789").originalUrl("https://b.example").build();
+
+    @BeforeEach
+    void setUp() {
+        analyticsRepository = mock(AnalyticsRepository.class);
+        urlRepository = mock(UrlRepository.class);
+        when(urlRepository.findByShortCodeIn(anyCollection())).thenReturn(List.of(first, second));
+        when(urlRepository.getReferenceById(1L)).thenReturn(first);
+        when(urlRepository.getReferenceById(2L)).thenReturn(second);
+        when(analyticsRepository.findByShortCodeIdInAndAccessDateIn(anyCollection(), anyCollection()))
+                .thenReturn(List.of());
+
+        // StatelessSession writes: inserts get an id like the IDENTITY column would assign
+        session = mock(StatelessSession.class);
+        when(session.beginTransaction()).thenReturn(mock(Transaction.class));
+        AtomicLong ids = new AtomicLong(100);
+        doAnswer(invocation -> {
+            invocation.<Analytics>getArgument(0).setId(ids.incrementAndGet());
+            return null;
+        }).when(session).insert(any(Object.class));
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        when(sessionFactory.openStatelessSession()).thenReturn(session);
+        entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+
+        properties = new AnalyticsConsumerProperties();
+        stateStore = new AnalyticsStateStore(properties, new SimpleMeterRegistry());
+        AnalyticsStorageProperties jsonStorage = new AnalyticsStorageProperties();
+        jsonStorage.setMode(AnalyticsStorageProperties.Mode.JSON);
+        service = newService(new AnalyticsDimensionStore(mock(JdbcTemplate.class), jsonStorage));
+    }
+
+    private AnalyticsAggregationService newService(AnalyticsDimensionStore dimensionStore) {
+        return new AnalyticsAggregationService(analyticsRepository, urlRepository,
+                new UserAgentClassifier(new UserAgentCacheProperties(), new SimpleMeterRegistry()),
+                stateStore, new AnalyticsRollupService(mock(JdbcTemplate.class)), dimensionStore,
+                entityManagerFactory, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void batchIsWrittenAsOneRowPerLinkAndDay() {
+        Analytics existing = Analytics.builder()
+                .id(7L)
+                .shortCode(first)
+                .accessDate(TODAY)
+                .totalVisitCount(10)
+                .browserVisitCounts(new HashMap<>(Map.of("Firefox", 4)))
+                .deviceTypeVisitCounts(new HashMap<>())
+                .osVisitCounts(new HashMap<>())
+                .browserLastSeen(new HashMap<>())
+                .deviceLastSeen(new HashMap<>())
+                .build();
+        when(analyticsRepository.findByShortCodeIdInAndAccessDateIn(anyCollection(), anyCollection()))
+                .thenReturn(List.of(existing));
+
+        List<AnalyticsEvent> events = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            events.add(event("AbC123", "DE"));
+        }
+        events.add(event("AbC123", "FR"));
+        events.add(event("abc123", "FR")); // codes are case-sensitive: not the same link
+        for (int i = 0; i < 99; i++) {
+            events.add(event("xyz789", "US"));
+        }
+        events.add(event("deleted", "US"));
+
+        service.applyBatch(Map.of(0, events));
+
+        ArgumentCaptor<Analytics> updatedRow = ArgumentCaptor.forClass(Analytics.class);
+        ArgumentCaptor<Analytics> createdRow = ArgumentCaptor.forClass(Analytics.class);
+        verify(session, times(1)).update(updatedRow.capture());
+        verify(session, times(1)).insert(createdRow.capture());
+        verify(analyticsRepository, times(1)).findByShortCodeIdInAndAccessDateIn(anyCollection(), anyCollection());
+        verify(urlRepository, times(1)).findByShortCodeIn(anyCollection());
+
+        Analytics updated = updatedRow.getValue();
+        Analytics created = createdRow.getValue();
+        assertThat(updated).isSameAs(existing);
+        assertThat(created.getShortCode()).isSameAs(second);
+        assertThat(updated.getTotalVisitCount()).isEqualTo(10 + 301);
+        assertThat(updated.getBrowserVisitCounts()).containsEntry("Firefox", 4 + 301);
+        assertThat(updated.getClicksLast1Hour()).isEqualTo(301);
+        assertThat(updated.getCountry()).isEqualTo("FR"); // metadata of the latest click
+
+        assertThat(created.getTotalVisitCount()).isEqualTo(99);
+        assertThat(created.getOsVisitCounts().values().stream().mapToInt(Integer::intValue).sum()).isEqualTo(99);
+    }
+
+    @Test
+    void idsAndRowsAreServedFromPartitionStateOnLaterBatches() {
+        service.applyBatch(Map.of(0, List.of(event("AbC123", "DE")), 1, List.of(event("xyz789", "US"))));
+        service.applyBatch(Map.of(0, List.of(event("AbC123", "DE")), 1, List.of(event("xyz789", "US"))));
+
+        verify(urlRepository, times(1)).findByShortCodeIn(anyCollection());
+        verify(analyticsRepository, times(1)).findByShortCodeIdInAndAccessDateIn(anyCollection(), anyCollection());
+        verify(session, times(2)).insert(any(Object.class));
+        verify(session, times(2)).update(any(Object.class));
+        assertThat(stateStore.get(0, new AnalyticsStateStore.RowKey(1L, TODAY)).getTotalVisitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void failedWriteDropsPartitionStateSoTheRedeliveryReloads() {
+        service.applyBatch(Map.of(0, List.of(event("AbC123", "DE"))));
+        doThrow(new IllegalStateException("stale version")).when(session).update(any(Object.class));
+
+        assertThatThrownBy(() -> service.applyBatch(Map.of(0, List.of(event("AbC123", "DE")))))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(stateStore.get(0, new AnalyticsStateStore.RowKey(1L, TODAY))).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tableModeIncrementsDimensionRowsInsteadOfTheJsonColumns() throws Exception {
+        AnalyticsDimensionStore dimensionStore = mock(AnalyticsDimensionStore.class);
+        when(dimensionStore.isEnabled()).thenReturn(true);
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        doAnswer(invocation -> {
+            invocation.<Work>getArgument(0).execute(connection);
+            return null;
+        }).when(session).doWork(any(Work.class));
+        service = newService(dimensionStore);
+
+        service.applyBatch(Map.of(0, List.of(event("AbC123", "DE"), event("AbC123", "DE"), event("xyz789", "US"))));
+
+        ArgumentCaptor<Analytics> created = ArgumentCaptor.forClass(Analytics.class);
+        verify(session, times(2)).insert(created.capture());
+        assertThat(created.getAllValues()).allSatisfy(row -> assertThat(row.getBrowserVisitCounts()).isNull());
+
+        ArgumentCaptor<Map<AnalyticsDimensionStore.DimensionKey, AnalyticsDimensionStore.Increment>> increments =
+                ArgumentCaptor.forClass(Map.class);
+        verify(dimensionStore).increment(eq(connection), increments.capture(), anyInt());
+        long firstRowId = created.getAllValues().stream()
+                .filter(row -> row.getShortCode() == first).findFirst().orElseThrow().getId();
+        assertThat(increments.getValue()).hasSize(2 * 3) // two rows x (browser, device, os)
+                .containsKey(new AnalyticsDimensionStore.DimensionKey(firstRowId, AnalyticsDimensionStore.BROWSER, "Firefox"));
+    }
+
+    private static int sequence;
+
+    private static AnalyticsEvent event(String shortCode, String country) {
+        return AnalyticsEvent.builder()
+                .shortCode(shortCode)
+                .accessDate(TODAY)
+                .totalVisitCount(1)
+                .userAgent(FIREFOX)
+                .country(country)
+                .lastAccessTime(Instant.now().plusNanos(++sequence * 1000L))
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.dto.AnalyticsEvent;
+import com.shvmpk.url_shortener.exception.InvalidAnalyticsQueryException;
+import com.shvmpk.url_shortener.model.AnalyticsRollup.Granularity;
+import com.shvmpk.url_shortener.service.AnalyticsRollupService.Cover;
+import com.shvmpk.url_shortener.service.AnalyticsRollupService.RollupKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class AnalyticsRollupServiceTest {
+    private final AnalyticsRollupService service = new AnalyticsRollupService(mock(JdbcTemplate.class));
+
+    @Test
+    void rangeIsCoveredByMonthsThenDaysThenHours() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 30, 22, 0);
+        LocalDateTime end = LocalDateTime.of(2025, 4, 2, 5, 0);
+
+        assertThat(AnalyticsRollupService.cover(start, end)).containsExactly(
+                new Cover(Granularity.HOUR, start, LocalDateTime.of(2025, 1, 31, 0, 0)),
+                new Cover(Granularity.DAY, LocalDateTime.of(2025, 1, 31, 0, 0), LocalDateTime.of(2025, 2, 1, 0, 0)),
+                new Cover(Granularity.MONTH, LocalDateTime.of(2025, 2, 1, 0, 0), LocalDateTime.of(2025, 4, 1, 0, 0)),
+                new Cover(Granularity.DAY, LocalDateTime.of(2025, 4, 1, 0, 0), LocalDateTime.of(2025, 4, 2, 0, 0)),
+                new Cover(Granularity.HOUR, LocalDateTime.of(2025, 4, 2, 0, 0), end));
+    }
+
+    @Test
+    void shortRangesUseDaysOrHoursOnly() {
+        LocalDateTime day = LocalDateTime.of(2025, 3, 10, 0, 0);
+
+        assertThat(AnalyticsRollupService.cover(day, day.plusDays(3)))
+                .containsExactly(new Cover(Granularity.DAY, day, day.plusDays(3)));
+        assertThat(AnalyticsRollupService.cover(day.plusHours(3), day.plusHours(9)))
+                .containsExactly(new Cover(Granularity.HOUR, day.plusHours(3), day.plusHours(9)));
+    }
+
+    @Test
+    void eventIncrementsEveryGranularityAndDimension() {
+        AnalyticsEvent event = AnalyticsEvent.builder()
+                .lastAccessTime(Instant.parse("2025-03-10T14:35:00Z"))
+                .browser("Firefox").os("Linux").deviceType("Personal computer").country(null)
+                .build();
+        Map<RollupKey, Long> increments = new HashMap<>();
+
+        service.add(increments, 1L, event, 1);
+        service.add(increments, 1L, event, 2);
+
+        assertThat(increments).hasSize(3 * 5);
+        assertThat(increments).containsEntry(
+                new RollupKey(1L, Granularity.HOUR, LocalDateTime.of(2025, 3, 10, 14, 0), "total", ""), 3L);
+        assertThat(increments).containsEntry(
+                new RollupKey(1L, Granularity.MONTH, LocalDateTime.of(2025, 3, 1, 0, 0), "country", "Unknown"), 3L);
+    }
+
+    @Test
+    void oversizedOrEmptyRangesAreRejected() {
+        Instant now = Instant.parse("2025-03-10T14:35:00Z");
+
+        assertThatThrownBy(() -> service.query(1L, "abc", now, now.minusSeconds(3600), Granularity.DAY))
+                .isInstanceOf(InvalidAnalyticsQueryException.class);
+        assertThatThrownBy(() -> service.query(1L, "abc", now.minusSeconds(86_400L * 365), now, Granularity.HOUR))
+                .isInstanceOf(InvalidAnalyticsQueryException.class);
+    }
+}
@@ -0,0 +1,198 @@
+package com.shvmpk.url_shortener.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.shvmpk.url_shortener.config.BatchShortenProperties;
+import com.shvmpk.url_shortener.config.ReachabilityProperties;
+import com.shvmpk.url_shortener.dto.CachedShortCode;
+import com.shvmpk.url_shortener.dto.ShortUrlResponse;
+import com.shvmpk.url_shortener.model.ShortCode;
+import com.shvmpk.url_shortener.model.UrlVersion;
+import com.shvmpk.url_shortener.repository.UrlRepository;
+import com.shvmpk.url_shortener.util.LookupKeys;
+import com.shvmpk.url_shortener.util.ShortUrlGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.Validation;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+// BatchShortenService with the database, Redis and UrlService mocked
+class BatchShortenServiceTest {
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private UrlService urlService;
+    private UrlRepository urlRepository;
+    private ShortUrlGenerator shortUrlGenerator;
+    private StatelessSession session;
+    private ExistenceFilterService existenceFilterService;
+    private BatchShortenProperties properties;
+    private BatchShortenService batchShortenService;
+
+    private final List<ShortCode> insertedMappings = new ArrayList<>();
+    private final List<UrlVersion> insertedVersions = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        urlService = mock(UrlService.class);
+        when(urlService.toCachedLink(any())).thenAnswer(invocation -> CachedShortCode.from(invocation.getArgument(0)));
+        when(urlService.buildResponseFromEntity(any())).thenAnswer(invocation -> {
+            CachedShortCode link = invocation.getArgument(0);
+            return ShortUrlResponse.builder().shortUrl("http://localhost/" + link.shortCode()).build();
+        });
+
+        urlRepository = mock(UrlRepository.class);
+        shortUrlGenerator = mock(ShortUrlGenerator.class);
+        AtomicLong codes = new AtomicLong();
+        when(shortUrlGenerator.generate(anyInt())).thenAnswer(invocation -> {
+            List<String> generated = new ArrayList<>();
+            for (int i = 0; i < (int) invocation.getArgument(0); i++) {
+                generated.add("code" + codes.incrementAndGet());
+            }
+            return generated;
+        });
+
+        AtomicLong ids = new AtomicLong(100);
+        session = mock(StatelessSession.class);
+        when(session.beginTransaction()).thenReturn(mock(Transaction.class));
+        when(session.insert(any())).thenAnswer(invocation -> {
+            Object entity = invocation.getArgument(0);
+            if (entity instanceof ShortCode mapping) {
+                mapping.setId(ids.incrementAndGet());
+                insertedMappings.add(mapping);
+            } else if (entity instanceof UrlVersion version) {
+                version.setId(ids.incrementAndGet());
+                insertedVersions.add(version);
+            }
+            return null;
+        });
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        when(sessionFactory.openStatelessSession()).thenReturn(session);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+
+        ReachabilityProperties reachabilityProperties = new ReachabilityProperties();
+        reachabilityProperties.setMode(ReachabilityProperties.Mode.OFF);
+
+        existenceFilterService = mock(ExistenceFilterService.class);
+        properties = new BatchShortenProperties();
+        batchShortenService = new BatchShortenService(
+                urlService,
+                urlRepository,
+                shortUrlGenerator,
+                mock(LinkCacheService.class),
+                new ReachabilityService(reachabilityProperties, new SimpleMeterRegistry()),
+                existenceFilterService,
+                mock(RedisTemplate.class),
+                entityManagerFactory,
+                objectMapper,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                properties);
+    }
+
+    private List<JsonNode> run(String body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        batchShortenService.shorten(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    @Test
+    void ndjsonItemsAreDeduplicatedLookedUpTogetherAndReportedInOrder() throws Exception {
+        ShortCode existing = ShortCode.builder().id(7L).shortCode("old1").originalUrl("https://known.com/page").build();
+        when(urlRepository.findByOriginalUrlHashIn(anyCollection())).thenReturn(List.of(existing));
+
+        List<JsonNode> lines = run("""
+                {"longUrl":"https://example.com/a"}
+                {"longUrl":"https://known.com/page"}
+                {"longUrl":"https://www.Example.com/a/"}
+                {"longUrl":"not a url"}
+                """);
+
+        assertThat(lines).extracting(line -> line.get("index").asInt()).containsExactly(0, 1, 2, 3);
+        assertThat(lines).extracting(line -> line.get("status").asText())
+                .containsExactly("CREATED", "EXISTING", "DUPLICATE", "ERROR");
+        assertThat(lines.get(1).get("result").get("shortUrl").asText()).isEqualTo("http://localhost/old1");
+        assertThat(lines.get(2).get("result")).isEqualTo(lines.get(0).get("result"));
+        assertThat(lines.get(3).get("error").asText()).contains("Invalid URL format");
+
+        // One lookup for the two distinct valid URLs, one code reservation, one row of each kind
+        verify(urlRepository, times(1)).findByOriginalUrlHashIn(anyCollection());
+        verify(shortUrlGenerator).generate(1);
+        assertThat(insertedMappings).singleElement()
+                .satisfies(mapping -> assertThat(mapping.getOriginalUrl()).isEqualTo("https://example.com/a"));
+        assertThat(insertedVersions).singleElement()
+                .satisfies(version -> assertThat(version.getShortCode()).isSameAs(insertedMappings.get(0)));
+        assertThat(insertedMappings.get(0).getCurrentVersion()).isSameAs(insertedVersions.get(0));
+        verify(session).update(insertedMappings.get(0));
+        verify(existenceFilterService).addAll(List.of("code1"), List.of());
+    }
+
+    @Test
+    void aliasesTakenInTheChunkOrInTheDatabaseAreRejected() throws Exception {
+        when(urlRepository.findByOriginalUrlHashIn(anyCollection())).thenReturn(List.of());
+        when(urlRepository.findExistingAliasKeys(anyCollection())).thenReturn(List.of("taken"));
+
+        List<JsonNode> lines = run("""
+                [
+                  {"longUrl":"https://a.com","alias":"promo"},
+                  {"longUrl":"https://b.com","alias":"promo"},
+                  {"longUrl":"https://c.com","alias":"taken"},
+                  {"longUrl":"https://d.com"}
+                ]
+                """);
+
+        assertThat(lines).extracting(line -> line.get("status").asText())
+                .containsExactly("CREATED", "ERROR", "ERROR", "CREATED");
+        assertThat(lines.get(1).get("error").asText()).isEqualTo("Alias already exists");
+        assertThat(lines.get(2).get("error").asText()).isEqualTo("Alias already exists");
+        assertThat(insertedMappings).extracting(ShortCode::getOriginalUrl)
+                .containsExactly("https://a.com", "https://d.com");
+        // Lookup keys are set before the StatelessSession insert, which skips @PrePersist
+        assertThat(insertedMappings).extracting(ShortCode::getAliasKey).containsExactly("promo", null);
+        assertThat(insertedMappings).extracting(ShortCode::getOriginalUrlHash)
+                .containsExactly(LookupKeys.urlHash("https://a.com"), LookupKeys.urlHash("https://d.com"));
+    }
+
+    @Test
+    void chunksAreFlushedBeforeMalformedInputEndsTheStream() throws Exception {
+        properties.setChunkSize(2);
+        when(urlRepository.findByOriginalUrlHashIn(anyCollection())).thenReturn(List.of());
+
+        List<JsonNode> lines = run("""
+                {"longUrl":"https://a.com"}
+                {"longUrl":"https://b.com"}
+                {"longUrl":"https://c.com"}
+                {"longUrl":
+                """);
+
+        assertThat(lines).extracting(line -> line.get("status").asText())
+                .containsExactly("CREATED", "CREATED", "CREATED", "ERROR");
+        assertThat(lines.get(3).get("index").asInt()).isEqualTo(3);
+        assertThat(lines.get(3).get("error").asText()).startsWith("Malformed input");
+        verify(shortUrlGenerator).generate(2);
+        verify(shortUrlGenerator).generate(1);
+    }
+}
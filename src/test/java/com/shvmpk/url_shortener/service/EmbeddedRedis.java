@@ -0,0 +1,52 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.config.RedisConfig;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+
+// Real Redis on a free port for one test class, flushed before each test; register as a static
+// @RegisterExtension field and use template()
+class EmbeddedRedis implements BeforeAllCallback, AfterAllCallback, BeforeEachCallback {
+    private RedisServer redisServer;
+    private LettuceConnectionFactory connectionFactory;
+    private RedisTemplate<String, String> redisTemplate;
+
+    RedisTemplate<String, String> template() {
+        return redisTemplate;
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        redisTemplate = new RedisConfig().redisTemplate(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) throws Exception {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+}
@@ -0,0 +1,144 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.config.VisitorTrackingProperties;
+import com.shvmpk.url_shortener.dto.CachedShortCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Concurrency stress test for the click reservation in scripts/redirect.lua, against a real Redis
+class LinkCacheServiceClickLimitTest {
+    @RegisterExtension
+    static final EmbeddedRedis redis = new EmbeddedRedis();
+
+    private LinkCacheService linkCacheService;
+
+    @BeforeEach
+    void setUp() {
+        linkCacheService = new LinkCacheService(redis.template(), new VisitorTrackingProperties());
+    }
+
+    @Test
+    void limitOfNGrantsExactlyNRedirectsUnderContention() throws Exception {
+        int limit = 100;
+        int visitors = 2_000;
+        linkCacheService.cacheLink(clickLimitedLink("aBc123", limit, 0));
+
+        AtomicInteger granted = new AtomicInteger();
+        AtomicInteger denied = new AtomicInteger();
+        runConcurrently(visitors, i -> {
+            LinkCacheService.Visit visit = linkCacheService.recordVisit("aBc123", "visitor-" + i, true);
+            if (visit.status() == LinkCacheService.VisitStatus.OK && visit.changed()) {
+                granted.incrementAndGet();
+            } else if (visit.status() == LinkCacheService.VisitStatus.CLICK_LIMIT_REACHED) {
+                denied.incrementAndGet();
+            }
+        });
+
+        assertThat(granted.get()).isEqualTo(limit);
+        assertThat(denied.get()).isEqualTo(visitors - limit);
+    }
+
+    @Test
+    void largeLimitIsExactInHllMode() throws Exception {
+        // Large enough that a PFCOUNT estimate (0.81% standard error) would be off by ~100
+        int limit = 12_000;
+        int visitors = 12_500;
+        linkCacheService.cacheLink(clickLimitedLink("bIg500", limit, 0));
+
+        AtomicInteger granted = new AtomicInteger();
+        runConcurrently(visitors, i -> {
+            LinkCacheService.Visit visit = linkCacheService.recordVisit("bIg500", "visitor-" + i, false);
+            if (visit.status() == LinkCacheService.VisitStatus.OK && visit.changed()) {
+                granted.incrementAndGet();
+                assertThat(visit.approximate()).isFalse();
+            }
+        });
+
+        assertThat(granted.get()).isEqualTo(limit);
+        assertThat(linkCacheService.countVisitors("bIg500", limit))
+                .isEqualTo(new LinkCacheService.VisitorCount(limit, false));
+    }
+
+    @Test
+    void repeatVisitorsDoNotConsumeTheBudget() throws Exception {
+        linkCacheService.cacheLink(clickLimitedLink("rPt42", 3, 0));
+
+        AtomicInteger newVisits = new AtomicInteger();
+        runConcurrently(500, i -> {
+            LinkCacheService.Visit visit = linkCacheService.recordVisit("rPt42", "visitor-" + (i % 2), false);
+            if (visit.changed()) {
+                newVisits.incrementAndGet();
+            }
+        });
+
+        assertThat(newVisits.get()).isEqualTo(2);
+        LinkCacheService.Visit third = linkCacheService.recordVisit("rPt42", "visitor-2", false);
+        assertThat(third.status()).isEqualTo(LinkCacheService.VisitStatus.OK);
+        assertThat(third.visitorCount()).isEqualTo(3);
+        assertThat(linkCacheService.recordVisit("rPt42", "visitor-3", false).status())
+                .isEqualTo(LinkCacheService.VisitStatus.CLICK_LIMIT_REACHED);
+    }
+
+    @Test
+    void reservationSurvivesLinkRecordRebuiltFromStaleCount() {
+        linkCacheService.cacheLink(clickLimitedLink("sTl9", 5, 0));
+        for (int i = 0; i < 5; i++) {
+            assertThat(linkCacheService.recordVisit("sTl9", "visitor-" + i, false).changed()).isTrue();
+        }
+
+        // Postgres has not seen the write-behind flush yet, so the rebuilt record still says 0
+        linkCacheService.evictLink("sTl9");
+        linkCacheService.cacheLink(clickLimitedLink("sTl9", 5, 0));
+
+        assertThat(linkCacheService.recordVisit("sTl9", "visitor-5", true).status())
+                .isEqualTo(LinkCacheService.VisitStatus.CLICK_LIMIT_REACHED);
+    }
+
+    private static CachedShortCode clickLimitedLink(String code, int maxClicks, int uniqueVisitorCount) {
+        return CachedShortCode.builder()
+                .id(1L)
+                .shortCode(code)
+                .originalUrl("https://example.com/" + code)
+                .maxClicks(maxClicks)
+                .uniqueVisitorCount(uniqueVisitorCount)
+                .isClickBased(true)
+                .build();
+    }
+
+    private interface Task {
+        void run(int i) throws Exception;
+    }
+
+    private static void runConcurrently(int tasks, Task task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < tasks; i++) {
+                int n = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    task.run(n);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.config.VisitorTrackingProperties;
+import com.shvmpk.url_shortener.dto.CachedShortCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Link record eviction against a real Redis, with a redirect racing the mutating transaction
+class LinkCacheServiceEvictionTest {
+    @RegisterExtension
+    static final EmbeddedRedis redis = new EmbeddedRedis();
+
+    private LinkCacheService linkCacheService;
+
+    @BeforeEach
+    void setUp() {
+        linkCacheService = new LinkCacheService(redis.template(), new VisitorTrackingProperties());
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void redirectBetweenEvictionAndCommitDoesNotLeaveTheOldRecordCached() {
+        linkCacheService.cacheLink(link("aBc123", "https://old.example.com"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        linkCacheService.evictLink("aBc123");
+
+        // Before the commit a redirect still reads the old row from the DB and caches it again
+        assertThat(linkCacheService.getLink("aBc123")).isNotNull();
+        linkCacheService.cacheLink(link("aBc123", "https://old.example.com"));
+
+        commit();
+
+        assertThat(linkCacheService.getLink("aBc123")).isNull();
+    }
+
+    @Test
+    void rolledBackTransactionKeepsTheRecord() {
+        linkCacheService.cacheLink(link("aBc123", "https://old.example.com"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        linkCacheService.evictLink("aBc123");
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(linkCacheService.getLink("aBc123")).isNotNull();
+    }
+
+    @Test
+    void evictsImmediatelyOutsideATransaction() {
+        linkCacheService.cacheLink(link("aBc123", "https://old.example.com"));
+
+        linkCacheService.evictLink("aBc123");
+
+        assertThat(linkCacheService.getLink("aBc123")).isNull();
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static CachedShortCode link(String code, String originalUrl) {
+        return CachedShortCode.builder()
+                .id(1L)
+                .shortCode(code)
+                .originalUrl(originalUrl)
+                .build();
+    }
+}
@@ -0,0 +1,57 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.config.LiveAnalyticsProperties;
+import com.shvmpk.url_shortener.dto.AnalyticsEvent;
+import com.shvmpk.url_shortener.dto.LiveClickStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class LiveClickAggregatorTest {
+    private final LiveClickAggregator aggregator =
+            new LiveClickAggregator(new LiveAnalyticsProperties(), new SimpleMeterRegistry());
+
+    @Test
+    void snapshotReportsRateAndTopDimensions() {
+        Instant now = Instant.now();
+        for (int i = 0; i < 30; i++) aggregator.record(event("abc123", now, "India", "https://t.co/x"));
+        for (int i = 0; i < 20; i++) aggregator.record(event("abc123", now, "Germany", null));
+        for (int i = 0; i < 10; i++) aggregator.record(event("abc123", now.minus(Duration.ofMinutes(3)), "France", "https://news.example.com/a"));
+        aggregator.record(event("abc123", now.minus(Duration.ofMinutes(30)), "Spain", null)); // outside the window
+        aggregator.record(event("other", now, "India", null));
+        aggregator.record(event("ABC123", now, "India", null)); // codes are case-sensitive
+
+        LiveClickStats stats = aggregator.snapshot("abc123", now);
+
+        assertThat(stats.getClicksLastMinute()).isEqualTo(50);
+        assertThat(stats.getClicksPerSecond()).isEqualTo(50 / 60.0);
+        assertThat(stats.getClicksInWindow()).isEqualTo(60);
+        assertThat(stats.getTopCountries()).containsExactly(
+                entry("India", 30),
+                entry("Germany", 20),
+                entry("France", 10));
+        assertThat(stats.getTopReferrers()).containsEntry("t.co", 30)
+                .containsEntry("direct", 20)
+                .containsEntry("news.example.com", 10);
+    }
+
+    @Test
+    void clicksAgeOutOfTheWindow() {
+        Instant now = Instant.now();
+        aggregator.record(event("abc123", now, "India", null));
+
+        LiveClickStats later = aggregator.snapshot("abc123", now.plus(Duration.ofMinutes(6)));
+
+        assertThat(later.getClicksInWindow()).isZero();
+        assertThat(later.getTopCountries()).isEmpty();
+    }
+
+    private static AnalyticsEvent event(String code, Instant at, String country, String referer) {
+        return AnalyticsEvent.builder().shortCode(code).lastAccessTime(at).country(country).referer(referer).build();
+    }
+}
@@ -0,0 +1,137 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.config.ReachabilityProperties;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// ReachabilityService against a local stub HTTP server
+class ReachabilityServiceTest {
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ReachabilityProperties properties;
+    private ReachabilityService reachabilityService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/ok", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/missing", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.createContext("/broken", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            requests.incrementAndGet();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+
+        properties = new ReachabilityProperties();
+        properties.setConnectTimeout(Duration.ofMillis(500));
+        properties.setRequestTimeout(Duration.ofMillis(500));
+        reachabilityService = new ReachabilityService(properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void reachableHostIsProbedOnceAndCached() {
+        assertThat(reachabilityService.isReachable(baseUrl + "/ok")).isTrue();
+        assertThat(reachabilityService.isReachable(baseUrl + "/ok?again")).isTrue();
+        // Cached per host, so other paths on the same host are not probed either
+        assertThat(reachabilityService.isReachable(baseUrl + "/missing")).isTrue();
+
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void clientErrorsStillMeanTheHostIsAlive() {
+        assertThat(reachabilityService.isReachable(baseUrl + "/missing")).isTrue();
+    }
+
+    @Test
+    void deadHostIsNegativelyCached() {
+        assertThat(reachabilityService.isReachable(baseUrl + "/broken")).isFalse();
+        assertThat(reachabilityService.isKnownUnreachable(baseUrl + "/ok")).isTrue();
+        assertThat(reachabilityService.isReachable(baseUrl + "/ok")).isFalse();
+
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void refusedConnectionIsUnreachable() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        assertThat(reachabilityService.isReachable("http://localhost:" + closedPort + "/")).isFalse();
+    }
+
+    @Test
+    void slowHostTimesOutWithinBudget() {
+        long start = System.nanoTime();
+        assertThat(reachabilityService.isReachable(baseUrl + "/slow")).isFalse();
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertThat(elapsedMillis).isLessThan(3000);
+    }
+
+    @Test
+    void concurrentChecksShareOneProbe() {
+        List<CompletableFuture<Boolean>> checks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            checks.add(reachabilityService.checkAsync(baseUrl + "/slow"));
+        }
+        release.countDown();
+
+        checks.forEach(check -> assertThat(check.join()).isTrue());
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void nonHttpUrlsAreUnreachable() {
+        assertThat(reachabilityService.isReachable("ftp://example.com/file")).isFalse();
+        assertThat(reachabilityService.isReachable("not a url")).isFalse();
+        assertThat(requests.get()).isZero();
+    }
+}
@@ -0,0 +1,103 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.config.RedirectCacheProperties;
+import com.shvmpk.url_shortener.dto.CachedShortCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// What the L1 redirect cache admits, when it drops entries, and eviction around a commit
+class RedirectCacheServiceTest {
+    private SimpleMeterRegistry meterRegistry;
+    private RedirectCacheService cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new RedirectCacheService(new RedirectCacheProperties(), meterRegistry);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void cachesPlainLinks() {
+        cache.put(link("aBc123").build());
+
+        assertThat(cache.get("aBc123")).map(CachedShortCode::originalUrl).contains("https://example.com/aBc123");
+        assertThat(cache.get("abc123")).isEmpty(); // case-sensitive canonical key
+    }
+
+    @Test
+    void neverCachesClickLimitedDisabledOrExpiredLinks() {
+        cache.put(link("limited").maxClicks(10).isClickBased(true).build());
+        cache.put(link("disabled").isDisabled(true).build());
+        cache.put(link("expired").expiresAt(LocalDateTime.now().minusMinutes(1)).build());
+
+        assertThat(cache.get("limited")).isEmpty();
+        assertThat(cache.get("disabled")).isEmpty();
+        assertThat(cache.get("expired")).isEmpty();
+    }
+
+    @Test
+    void dropsEntriesThatExpiredWhileCached() throws InterruptedException {
+        cache.put(link("soon").expiresAt(LocalDateTime.now().plusNanos(50_000_000)).build());
+        assertThat(cache.get("soon")).isPresent();
+
+        Thread.sleep(100);
+
+        assertThat(cache.get("soon")).isEmpty();
+        assertThat(meterRegistry.counter("redirect.l1.expired").count()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidateEvictsAgainAfterCommit() {
+        cache.put(link("aBc123").originalUrl("https://old.example.com").build());
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalidate("aBc123");
+        assertThat(cache.get("aBc123")).isEmpty();
+
+        // A redirect before the commit reloads the old row
+        cache.put(link("aBc123").originalUrl("https://old.example.com").build());
+        commit();
+
+        assertThat(cache.get("aBc123")).isEmpty();
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        RedirectCacheProperties properties = new RedirectCacheProperties();
+        properties.setEnabled(false);
+        RedirectCacheService disabled = new RedirectCacheService(properties, new SimpleMeterRegistry());
+
+        disabled.put(link("aBc123").build());
+
+        assertThat(disabled.get("aBc123")).isEmpty();
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static CachedShortCode.CachedShortCodeBuilder link(String code) {
+        return CachedShortCode.builder()
+                .id(1L)
+                .shortCode(code)
+                .originalUrl("https://example.com/" + code);
+    }
+}
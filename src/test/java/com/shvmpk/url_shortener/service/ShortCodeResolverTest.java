@@ -0,0 +1,164 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.config.RedirectCacheProperties;
+import com.shvmpk.url_shortener.dto.CachedShortCode;
+import com.shvmpk.url_shortener.model.ShortCode;
+import com.shvmpk.url_shortener.repository.UrlRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+// Redis and DB calls per resolution, with a real L1 and alias cache in front of mocked tiers
+class ShortCodeResolverTest {
+    private final ShortCode promo = ShortCode.builder().id(1L).shortCode("Xy7Qp").alias("promo").originalUrl("https://a.example").build();
+
+    private RedirectCacheService redirectCacheService;
+    private LinkCacheService linkCacheService;
+    private UrlRepository urlRepository;
+    private ExistenceFilterService existenceFilterService;
+    private NegativeLookupCache negativeLookupCache;
+    private SimpleMeterRegistry meterRegistry;
+    private ShortCodeResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        RedirectCacheProperties properties = new RedirectCacheProperties();
+        redirectCacheService = new RedirectCacheService(properties, meterRegistry);
+        linkCacheService = mock(LinkCacheService.class);
+        urlRepository = mock(UrlRepository.class);
+        UrlService urlService = mock(UrlService.class);
+        when(urlService.toCachedLink(any())).thenAnswer(invocation -> CachedShortCode.from(invocation.getArgument(0)));
+        existenceFilterService = mock(ExistenceFilterService.class);
+        when(existenceFilterService.mightContainShortCode(anyString())).thenReturn(true);
+        when(existenceFilterService.mightContainAlias(anyString())).thenReturn(true);
+        negativeLookupCache = new NegativeLookupCache(properties, meterRegistry);
+        resolver = new ShortCodeResolver(properties, redirectCacheService, linkCacheService, urlRepository, urlService,
+                existenceFilterService, negativeLookupCache, meterRegistry);
+    }
+
+    @Test
+    void coldCodeCostsOneRedisReadAndOneQueryThenComesFromL1() {
+        when(urlRepository.findByShortCodeOrAliasKey("Xy7Qp", "xy7qp")).thenReturn(List.of(promo));
+
+        assertThat(resolver.resolve("Xy7Qp").orElseThrow().id()).isEqualTo(1L);
+        verify(linkCacheService, times(1)).getLink("Xy7Qp");
+        verify(urlRepository, times(1)).findByShortCodeOrAliasKey("Xy7Qp", "xy7qp");
+        verify(linkCacheService, times(1)).cacheLink(any());
+
+        assertThat(resolver.resolve("Xy7Qp").orElseThrow().id()).isEqualTo(1L);
+        verifyNoMoreInteractions(linkCacheService, urlRepository);
+    }
+
+    @Test
+    void aliasIsMappedToItsCodeAfterTheFirstQuery() {
+        when(urlRepository.findByShortCodeOrAliasKey("promo", "promo")).thenReturn(List.of(promo));
+        when(urlRepository.findByShortCodeOrAliasKey("PROMO", "promo")).thenReturn(List.of(promo));
+
+        assertThat(resolver.resolve("promo").orElseThrow().shortCode()).isEqualTo("Xy7Qp");
+        assertThat(resolver.resolve("PROMO").orElseThrow().shortCode()).isEqualTo("Xy7Qp");
+        assertThat(resolver.resolve(" promo ").orElseThrow().shortCode()).isEqualTo("Xy7Qp");
+
+        verify(linkCacheService, times(1)).getLink(anyString());
+        verify(urlRepository, times(1)).findByShortCodeOrAliasKey(anyString(), anyString());
+    }
+
+    @Test
+    void shortCodeWinsOverAnAliasWithTheSameSpelling() {
+        ShortCode code = ShortCode.builder().id(2L).shortCode("promo").originalUrl("https://b.example").build();
+        when(urlRepository.findByShortCodeOrAliasKey("promo", "promo")).thenReturn(List.of(promo, code));
+
+        assertThat(resolver.resolve("promo").orElseThrow().id()).isEqualTo(2L);
+    }
+
+    @Test
+    void redisHitSkipsTheDatabase() {
+        when(linkCacheService.getLink("Xy7Qp")).thenReturn(CachedShortCode.from(promo));
+
+        assertThat(resolver.resolve("Xy7Qp").orElseThrow().id()).isEqualTo(1L);
+        assertThat(resolver.resolve("Xy7Qp").orElseThrow().id()).isEqualTo(1L);
+
+        verify(linkCacheService, times(1)).getLink("Xy7Qp");
+        verifyNoInteractions(urlRepository);
+    }
+
+    @Test
+    void clickLimitedLinksAreReadFromRedisEveryTime() {
+        ShortCode limited = ShortCode.builder().id(3L).shortCode("Lim1").originalUrl("https://c.example")
+                .maxClicks(5).isClickBased(true).build();
+        when(linkCacheService.getLink("Lim1")).thenReturn(CachedShortCode.from(limited));
+
+        resolver.resolve("Lim1");
+        resolver.resolve("Lim1");
+
+        verify(linkCacheService, times(2)).getLink("Lim1");
+        verifyNoInteractions(urlRepository);
+    }
+
+    @Test
+    void aliasMovedToAnotherLinkIsResolvedAgain() {
+        when(urlRepository.findByShortCodeOrAliasKey("promo", "promo")).thenReturn(List.of(promo));
+        resolver.resolve("promo");
+
+        // The alias moves from Xy7Qp to Zz9: the old record loses it and the mutation evicts L1
+        ShortCode renamed = ShortCode.builder().id(1L).shortCode("Xy7Qp").alias("spring").originalUrl("https://a.example").build();
+        ShortCode moved = ShortCode.builder().id(4L).shortCode("Zz9").alias("promo").originalUrl("https://d.example").build();
+        redirectCacheService.invalidate("Xy7Qp");
+        when(linkCacheService.getLink("Xy7Qp")).thenReturn(CachedShortCode.from(renamed));
+        when(urlRepository.findByShortCodeOrAliasKey("promo", "promo")).thenReturn(List.of(moved));
+
+        assertThat(resolver.resolve("promo").orElseThrow().shortCode()).isEqualTo("Zz9");
+    }
+
+    @Test
+    void inputTheExistenceFilterHasNeverSeenStopsBeforeRedis() {
+        when(existenceFilterService.mightContainShortCode("nope")).thenReturn(false);
+        when(existenceFilterService.mightContainAlias("nope")).thenReturn(false);
+
+        assertThat(resolver.resolve("nope")).isEmpty();
+        verifyNoInteractions(linkCacheService, urlRepository);
+        assertThat(meterRegistry.get("redirect.resolve").tag("tier", "filter").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void confirmedMissIsRememberedUntilTheKeyIsCreated() {
+        when(urlRepository.findByShortCodeOrAliasKey(anyString(), anyString())).thenReturn(List.of());
+
+        assertThat(resolver.resolve("nope")).isEmpty();
+        assertThat(resolver.resolve("nope")).isEmpty();
+        verify(linkCacheService, times(1)).getLink("nope");
+        verify(urlRepository, times(1)).findByShortCodeOrAliasKey("nope", "nope");
+
+        // An alias "Nope" is created: every case variant of the input is looked up again
+        negativeLookupCache.invalidate("nope");
+        ShortCode created = ShortCode.builder().id(5L).shortCode("Ab1").alias("Nope").originalUrl("https://e.example").build();
+        when(urlRepository.findByShortCodeOrAliasKey("nope", "nope")).thenReturn(List.of(created));
+
+        assertThat(resolver.resolve("nope").orElseThrow().shortCode()).isEqualTo("Ab1");
+    }
+
+    @Test
+    void missRatioCoversTheLastInterval() {
+        when(linkCacheService.getLink("Xy7Qp")).thenReturn(CachedShortCode.from(promo));
+        when(existenceFilterService.mightContainShortCode("scan")).thenReturn(false);
+        when(existenceFilterService.mightContainAlias("scan")).thenReturn(false);
+
+        resolver.resolve("Xy7Qp");
+        resolver.resolve("scan");
+        resolver.resolve("scan");
+        resolver.resolve("scan");
+        resolver.updateMissRatio();
+        assertThat(meterRegistry.get("redirect.miss.ratio").gauge().value()).isEqualTo(0.75);
+
+        resolver.resolve("Xy7Qp");
+        resolver.updateMissRatio();
+        assertThat(meterRegistry.get("redirect.miss.ratio").gauge().value()).isEqualTo(0.0);
+    }
+}
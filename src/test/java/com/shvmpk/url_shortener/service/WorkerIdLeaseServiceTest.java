@@ -0,0 +1,131 @@
+package com.shvmpk.url_shortener.service;
+
+import com.shvmpk.url_shortener.config.WorkerIdProperties;
+import com.shvmpk.url_shortener.util.SnowflakeIdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Lease acquisition, heartbeat and reclamation of Snowflake worker ids against a real Redis
+class WorkerIdLeaseServiceTest {
+    @RegisterExtension
+    static final EmbeddedRedis redis = new EmbeddedRedis();
+
+    private final AtomicLong clock = new AtomicLong(1_750_000_000_000L);
+    private WorkerIdProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new WorkerIdProperties();
+    }
+
+    private WorkerIdLeaseService node() {
+        WorkerIdLeaseService service = new WorkerIdLeaseService(properties, redis.template(), clock::get);
+        service.init();
+        return service;
+    }
+
+    @Test
+    void nodesLeaseDistinctWorkerIds() {
+        Set<Long> workerIds = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            workerIds.add(node().idGenerator().getMachineId());
+        }
+        assertThat(workerIds).hasSize(50);
+    }
+
+    @Test
+    void holderStopsUsingItsIdBeforeRedisCanHandItOut() {
+        WorkerIdLeaseService node = node();
+        long workerId = node.idGenerator().getMachineId();
+        Long ttl = redis.template().getExpire(properties.getKeyPrefix() + workerId);
+        assertThat(ttl).isPositive();
+
+        // No heartbeat for leaseTtl - heartbeatInterval: the id is unusable, the Redis key still exists
+        clock.addAndGet(properties.getLeaseTtl().minus(properties.getHeartbeatInterval()).toMillis());
+        assertThatThrownBy(node::idGenerator).isInstanceOf(IllegalStateException.class);
+        assertThat(redis.template().hasKey(properties.getKeyPrefix() + workerId)).isTrue();
+
+        // A late heartbeat that still finds its own lease resumes with the same id
+        node.heartbeat();
+        assertThat(node.idGenerator().getMachineId()).isEqualTo(workerId);
+    }
+
+    @Test
+    void lostLeaseIsReplacedAndTheNextHolderStartsAboveTheHighWaterMark() {
+        WorkerIdLeaseService first = node();
+        long workerId = first.idGenerator().getMachineId();
+        long highWater = Long.parseLong(redis.template().opsForValue().get(properties.getKeyPrefix() + workerId + ":high-water"));
+
+        // The lease expires and another node takes the id
+        redis.template().delete(properties.getKeyPrefix() + workerId);
+        redis.template().opsForValue().set(properties.getKeyPrefix() + workerId, "other-node");
+
+        first.heartbeat();
+        assertThat(first.idGenerator().getMachineId()).isNotEqualTo(workerId);
+
+        // Reclaimed once the lease has expired: timestamps stay above the previous holder's mark
+        clock.addAndGet(properties.getLeaseTtl().toMillis());
+        SnowflakeIdGenerator reclaimed = new SnowflakeIdGenerator(workerId, highWater, clock::get);
+        assertThat((reclaimed.nextId() >>> 22) + SnowflakeIdGenerator.EPOCH).isGreaterThan(highWater);
+    }
+
+    @Test
+    void releaseFreesTheIdAndKeepsTheHighWaterMark() {
+        WorkerIdLeaseService node = node();
+        long workerId = node.idGenerator().getMachineId();
+
+        node.release();
+
+        assertThat(redis.template().hasKey(properties.getKeyPrefix() + workerId)).isFalse();
+        assertThat(redis.template().hasKey(properties.getKeyPrefix() + workerId + ":high-water")).isTrue();
+        assertThatThrownBy(node::idGenerator).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void releasedIdCanBeTakenOverAndUsedWithoutWaitingForTheClock() {
+        WorkerIdLeaseService first = node();
+        long workerId = first.idGenerator().getMachineId();
+        long lastIdOfFirst = first.idGenerator().nextId();
+        first.heartbeat(); // raises the mark to the end of the renewed lease
+
+        first.release();
+
+        // Every other id is taken, so the next node has to reuse the released one, at the same instant
+        for (int id = 0; id <= SnowflakeIdGenerator.MAX_MACHINE_ID; id++) {
+            if (id != workerId) {
+                redis.template().opsForValue().set(properties.getKeyPrefix() + id, "other-node");
+            }
+        }
+        WorkerIdLeaseService second = node();
+        assertThat(second.idGenerator().getMachineId()).isEqualTo(workerId);
+
+        long[] ids = second.idGenerator().nextIds(10);
+        assertThat(ids[0]).isGreaterThan(lastIdOfFirst);
+    }
+
+    @Test
+    void idWhoseMarkIsStillAheadOfTheClockIsSkipped() {
+        for (int id = 1; id <= SnowflakeIdGenerator.MAX_MACHINE_ID; id++) {
+            redis.template().opsForValue().set(properties.getKeyPrefix() + id, "other-node");
+        }
+        // Left by a holder whose clock ran ahead of this node's
+        redis.template().opsForValue().set(properties.getKeyPrefix() + "0:high-water", Long.toString(clock.get() + 60_000));
+
+        WorkerIdLeaseService node = node();
+        assertThatThrownBy(node::idGenerator).isInstanceOf(IllegalStateException.class);
+        assertThat(redis.template().hasKey(properties.getKeyPrefix() + 0)).isFalse();
+
+        clock.addAndGet(60_000);
+        node.heartbeat();
+        assertThat(node.idGenerator().getMachineId()).isZero();
+        assertThat((node.idGenerator().nextId() >>> 22) + SnowflakeIdGenerator.EPOCH).isGreaterThan(clock.get() - 1);
+    }
+}
@@ -0,0 +1,68 @@
+package com.shvmpk.url_shortener.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void growsPastItsInitialCapacityWithoutLosingKeysOrAccuracy() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01, 2, 0.5);
+        for (int i = 0; i < 50_000; i++) {
+            filter.put("code-" + i);
+        }
+
+        assertThat(filter.layerCount()).isGreaterThan(1);
+        for (int i = 0; i < 50_000; i++) {
+            assertThat(filter.mightContain("code-" + i)).isTrue();
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other-" + i)) falsePositives++;
+        }
+        // Compound bound is fpp / (1 - tightening) = 2%; a fixed 1,000-key filter would be near 100%
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(filter.expectedFpp()).isLessThan(0.02);
+    }
+
+    @Test
+    void repeatedKeysDoNotFillLayers() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01, 2, 0.5);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("same");
+        }
+
+        assertThat(filter.layerCount()).isEqualTo(1);
+        assertThat(filter.size()).isEqualTo(1);
+    }
+
+    @Test
+    void checkpointRoundTripKeepsLayersAndKeys() throws IOException {
+        ScalableBloomFilter filter = new ScalableBloomFilter(500, 0.01, 2, 0.5);
+        for (int i = 0; i < 5_000; i++) {
+            filter.put("c:" + i);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        filter.writeTo(out);
+
+        ScalableBloomFilter restored = ScalableBloomFilter.readFrom(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(restored.layerCount()).isEqualTo(filter.layerCount());
+        assertThat(restored.size()).isEqualTo(filter.size());
+        for (int i = 0; i < 5_000; i++) {
+            assertThat(restored.mightContain("c:" + i)).isTrue();
+        }
+        // The restored filter keeps growing from where it stopped
+        for (int i = 5_000; i < 20_000; i++) {
+            restored.put("c:" + i);
+        }
+        assertThat(restored.layerCount()).isGreaterThan(filter.layerCount());
+        assertThat(restored.mightContain("c:19999")).isTrue();
+    }
+}
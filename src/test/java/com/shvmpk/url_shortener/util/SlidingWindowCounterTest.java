@@ -0,0 +1,57 @@
+package com.shvmpk.url_shortener.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingWindowCounterTest {
+    private static final Instant NOW = Instant.parse("2025-06-01T12:30:15Z");
+
+    @Test
+    void countsClicksInsideEachWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter();
+        counter.record(NOW);
+        counter.record(NOW.minus(Duration.ofMinutes(5)), 3);
+        counter.record(NOW.minus(Duration.ofMinutes(30)), 2);
+        counter.record(NOW.minus(Duration.ofMinutes(90)), 7); // before the window
+
+        assertThat(counter.count(NOW, 10)).isEqualTo(4);
+        assertThat(counter.count(NOW, 60)).isEqualTo(6);
+    }
+
+    @Test
+    void wrappedSlotsAreResetAndLateClicksDropped() {
+        SlidingWindowCounter counter = new SlidingWindowCounter();
+        counter.record(NOW.minus(Duration.ofMinutes(60)), 5);
+        counter.record(NOW); // same slot, one hour later
+        counter.record(NOW.minus(Duration.ofMinutes(61))); // older than the ring by now
+
+        assertThat(counter.count(NOW, 60)).isEqualTo(1);
+        assertThat(counter.count(NOW.plus(Duration.ofMinutes(60)), 60)).isZero();
+    }
+
+    @Test
+    void persistedFormRoundTripsAndStaysSmall() {
+        SlidingWindowCounter counter = new SlidingWindowCounter();
+        for (int minute = 0; minute < 60; minute++) {
+            counter.record(NOW.minus(Duration.ofMinutes(minute)), 1_000);
+        }
+
+        byte[] bytes = counter.toBytes();
+        SlidingWindowCounter decoded = SlidingWindowCounter.fromBytes(bytes);
+
+        assertThat(bytes.length).isEqualTo(1 + 8 + 60 * 2);
+        assertThat(decoded).isEqualTo(counter);
+        assertThat(decoded.count(NOW, 10)).isEqualTo(10_000);
+        assertThat(decoded.count(NOW, 60)).isEqualTo(60_000);
+    }
+
+    @Test
+    void unknownVersionDecodesAsEmpty() {
+        assertThat(SlidingWindowCounter.fromBytes(new byte[]{9, 0, 0, 0, 0, 0, 0, 0, 1, 4}).count(NOW, 60)).isZero();
+        assertThat(SlidingWindowCounter.fromBytes(new SlidingWindowCounter().toBytes()).count(NOW, 60)).isZero();
+    }
+}
@@ -0,0 +1,122 @@
+package com.shvmpk.url_shortener.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTest {
+    private static final long NOW = 1_750_000_000_000L;
+
+    private static long timestamp(long id) {
+        return (id >>> 22) + SnowflakeIdGenerator.EPOCH;
+    }
+
+    @Test
+    void idsAreUniqueAcrossThreads() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                futures.add(pool.submit(() -> {
+                    long[] ids = new long[20_000];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = i % 10 == 0 ? generator.nextIds(3)[2] : generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            Set<Long> seen = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                long previous = Long.MIN_VALUE;
+                for (long id : future.get()) {
+                    assertThat(seen.add(id)).isTrue();
+                    assertThat(id).isGreaterThan(previous); // increasing per thread
+                    assertThat((id >>> 12) & 1023).isEqualTo(7);
+                    previous = id;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void sequenceOverflowBorrowsTheNextMillisecondInsteadOfWaiting() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 0, () -> NOW);
+
+        long[] ids = generator.nextIds(4096 + 10);
+
+        assertThat(timestamp(ids[4095])).isEqualTo(NOW);
+        assertThat(timestamp(ids[4096])).isEqualTo(NOW + 1);
+        assertThat(ids[4096]).isGreaterThan(ids[4095]);
+    }
+
+    @Test
+    void clockRegressionKeepsIdsIncreasingWithinTheBound() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 0, clock::get);
+        long before = generator.nextId();
+
+        clock.set(NOW - 500);
+        long during = generator.nextId();
+        assertThat(during).isGreaterThan(before);
+        assertThat(timestamp(during)).isEqualTo(NOW);
+
+        clock.set(NOW - 5_000);
+        assertThatThrownBy(generator::nextId)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Clock moved backwards");
+
+        clock.set(NOW + 1);
+        assertThat(timestamp(generator.nextId())).isEqualTo(NOW + 1);
+    }
+
+    @Test
+    void overloadWaitsForTheClockInsteadOfFailing() throws InterruptedException {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 0, clock::get);
+        // Use up every millisecond the generator may borrow
+        generator.nextIds((int) ((SnowflakeIdGenerator.MAX_AHEAD_MILLIS + 1) * 4096));
+
+        Thread ticker = Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ignored) {
+            }
+            clock.set(NOW + 1);
+        });
+        long id = generator.nextId();
+
+        assertThat(clock.get()).isEqualTo(NOW + 1); // returned only once the clock moved on
+        assertThat(timestamp(id)).isEqualTo(NOW + SnowflakeIdGenerator.MAX_AHEAD_MILLIS + 1);
+        ticker.join();
+    }
+
+    @Test
+    void idsStartAboveTheFloorOfAPreviousHolder() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, NOW + 200, () -> NOW);
+
+        assertThat(timestamp(generator.nextId())).isEqualTo(NOW + 201);
+    }
+
+    @Test
+    void retiredGeneratorReportsItsLastTimestampAndIssuesNoMoreIds() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 0, () -> NOW);
+        long[] ids = generator.nextIds(4096 + 1);
+
+        assertThat(generator.retire()).isEqualTo(timestamp(ids[4096])).isEqualTo(NOW + 1);
+        assertThat(generator.retire()).isEqualTo(NOW + 1);
+        assertThatThrownBy(generator::nextId).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,60 @@
+package com.shvmpk.url_shortener.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WindowedTopKTest {
+    private static final long MINUTE = 60_000;
+    private static final long NOW = 1_750_000_000_000L;
+
+    @Test
+    void heavyHittersSurviveALongTailLargerThanTheCapacity() {
+        WindowedTopK topK = new WindowedTopK(60 * MINUTE, 12, 100, 2048, 4);
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            long at = NOW - random.nextInt((int) (55 * MINUTE));
+            if (i % 4 == 0) {
+                topK.add("hot-" + (i % 5), 1, at, NOW);         // 5 keys, 10,000 clicks each
+            } else {
+                topK.add("tail-" + random.nextInt(50_000), 1, at, NOW);
+            }
+        }
+
+        List<WindowedTopK.Entry> top = topK.top(5, 60 * MINUTE, NOW);
+
+        assertThat(top).extracting(WindowedTopK.Entry::key)
+                .containsExactlyInAnyOrder("hot-0", "hot-1", "hot-2", "hot-3", "hot-4");
+        top.forEach(entry -> {
+            assertThat(entry.count()).isGreaterThanOrEqualTo(10_000);
+            assertThat(entry.count() - entry.maxError()).isLessThanOrEqualTo(10_000);
+        });
+    }
+
+    @Test
+    void shorterWindowsAndExpiredSlicesAreExcluded() {
+        WindowedTopK topK = new WindowedTopK(60 * MINUTE, 12, 10, 0, 0);
+        topK.add("recent", 3, NOW - MINUTE, NOW);
+        topK.add("older", 5, NOW - 40 * MINUTE, NOW);
+        topK.add("expired", 9, NOW - 90 * MINUTE, NOW);
+
+        assertThat(topK.top(10, 60 * MINUTE, NOW)).extracting(WindowedTopK.Entry::key).containsExactly("older", "recent");
+        assertThat(topK.top(10, 10 * MINUTE, NOW)).extracting(WindowedTopK.Entry::key).containsExactly("recent");
+        assertThat(topK.top(10, 60 * MINUTE, NOW + 2 * 60 * MINUTE)).isEmpty();
+    }
+
+    @Test
+    void spaceSavingNeverUndercounts() {
+        SpaceSaving summary = new SpaceSaving(2);
+        summary.add("a", 5);
+        summary.add("b", 1);
+        summary.add("c", 1); // evicts b, inherits its count as error
+
+        assertThat(summary.get("b")).isNull();
+        assertThat(summary.get("c")).isEqualTo(new SpaceSaving.Counter("c", 2, 1));
+        assertThat(summary.minCount()).isEqualTo(2);
+    }
+}